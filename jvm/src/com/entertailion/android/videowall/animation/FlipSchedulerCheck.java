@@ -0,0 +1,116 @@
+/*
+ * Copyright (C) 2013 ENTERTAILION LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.entertailion.android.videowall.animation;
+
+import java.util.Random;
+
+/**
+ * Drives a {@link FlipScheduler} from a {@link VirtualFrameSource} at 60
+ * frames per second and checks that the flips hold their cadence without
+ * drifting, that the jitter stays within its bounds and averages out, and that
+ * waves start all their flips in one frame. Throws an AssertionError on the
+ * first failure.
+ */
+public class FlipSchedulerCheck {
+
+	private static final long FRAME_MILLIS = 16;
+	private static final long PERIOD = 2000;
+	private static final int TICKS = 1000;
+
+	private static class Recorder implements FlipScheduler.Listener {
+
+		final VirtualFrameSource frameSource;
+		int ticks;
+		int flips;
+		int flipsInFrame;
+		long maxError;
+		long totalError;
+
+		Recorder(VirtualFrameSource frameSource) {
+			this.frameSource = frameSource;
+		}
+
+		@Override
+		public boolean onFlip() {
+			flipsInFrame++;
+			return true;
+		}
+
+		@Override
+		public void onTick(int flips) {
+			check(flips == flipsInFrame, "onTick reported " + flips + " flips of " + flipsInFrame);
+			this.flips += flips;
+			flipsInFrame = 0;
+			// the distance from the cadence set at start
+			long error = frameSource.uptimeMillis() - ticks * PERIOD;
+			maxError = Math.max(maxError, Math.abs(error));
+			totalError += error;
+			ticks++;
+		}
+
+	}
+
+	public static void main(String[] args) {
+		checkCadence(0, 1);
+		checkCadence(500, 1);
+		checkCadence(500, 3);
+		checkStop();
+		System.out.println("FlipSchedulerCheck: OK");
+	}
+
+	private static void checkCadence(long jitter, int waveSize) {
+		VirtualFrameSource frameSource = new VirtualFrameSource(FRAME_MILLIS);
+		Recorder recorder = new Recorder(frameSource);
+		FlipScheduler scheduler = new FlipScheduler(frameSource, recorder, new Random(1));
+		scheduler.setCadence(PERIOD, jitter);
+		scheduler.setWaveSize(waveSize);
+		scheduler.start();
+		// half a period short of the next flip, whatever its jitter
+		frameSource.advance(PERIOD * TICKS - PERIOD / 2);
+		long meanError = recorder.totalError / recorder.ticks;
+		String result = "jitter=" + jitter + ", wave=" + waveSize + ": ticks=" + recorder.ticks + ", frames=" + frameSource.getFrameCount()
+				+ ", maxError=" + recorder.maxError + ", meanError=" + meanError + ", lateness: " + scheduler.getLateness();
+		System.out.println(result);
+		check(recorder.ticks == TICKS, "drifted, " + result);
+		check(recorder.flips == TICKS * waveSize, "flips missing, " + result);
+		check(recorder.maxError <= jitter + FRAME_MILLIS, "off the cadence, " + result);
+		check(Math.abs(meanError) <= FRAME_MILLIS, "jitter does not average out, " + result);
+		// no later than the next frame, which the first flip waits for
+		check(scheduler.getLateness().getMax() <= FRAME_MILLIS, "flips late, " + result);
+		// between flips the scheduler waits rather than polling every frame
+		check(frameSource.getFrameCount() <= TICKS * 2, "polls frames, " + result);
+	}
+
+	private static void checkStop() {
+		VirtualFrameSource frameSource = new VirtualFrameSource(FRAME_MILLIS);
+		Recorder recorder = new Recorder(frameSource);
+		FlipScheduler scheduler = new FlipScheduler(frameSource, recorder, new Random(1));
+		scheduler.setCadence(PERIOD, 0);
+		scheduler.start();
+		frameSource.advance(PERIOD * 3);
+		scheduler.stop();
+		int ticks = recorder.ticks;
+		frameSource.advance(PERIOD * 10);
+		check(!scheduler.isRunning() && recorder.ticks == ticks, "flipped after stop");
+	}
+
+	private static void check(boolean condition, String message) {
+		if (!condition) {
+			throw new AssertionError(message);
+		}
+	}
+
+}
@@ -0,0 +1,154 @@
+/*
+ * Copyright (C) 2013 ENTERTAILION LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.entertailion.android.videowall.animation;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Drives a {@link FrameRateGovernor} from a {@link VirtualFrameSource} at 60
+ * frames per second which drops a given share of the frames, and checks that
+ * the governor steps down one level per window while the drops exceed its
+ * budget, holds its level within the budget, ignores idle periods and
+ * restores the levels one at a time once the drops stop. Throws an
+ * AssertionError on the first failure.
+ */
+public class FrameRateGovernorCheck {
+
+	private static final long FRAME_MILLIS = 16;
+	private static final float DROP_BUDGET = 0.1f;
+	// a measurement window of 60 frames when none are dropped
+	private static final long WINDOW_MILLIS = 60 * FRAME_MILLIS;
+
+	/**
+	 * Skips frames of a virtual display at random, as a busy UI thread does.
+	 */
+	private static class DroppingFrameSource implements FrameSource, FrameSource.Callback {
+
+		final VirtualFrameSource display = new VirtualFrameSource(FRAME_MILLIS);
+		final Random random = new Random(7);
+		float dropRatio;
+		Callback callback;
+
+		@Override
+		public void postFrame(Callback callback, long delayMillis) {
+			this.callback = callback;
+			display.postFrame(this, delayMillis);
+		}
+
+		@Override
+		public void removeFrame(Callback callback) {
+			if (this.callback == callback) {
+				this.callback = null;
+				display.removeFrame(this);
+			}
+		}
+
+		@Override
+		public long uptimeMillis() {
+			return display.uptimeMillis();
+		}
+
+		@Override
+		public void doFrame(long frameTimeMillis) {
+			if (random.nextFloat() < dropRatio) {
+				display.postFrame(this, 0);
+				return;
+			}
+			Callback frameCallback = callback;
+			callback = null;
+			if (frameCallback != null) {
+				frameCallback.doFrame(frameTimeMillis);
+			}
+		}
+
+	}
+
+	private static class Recorder implements FrameRateGovernor.Listener {
+
+		boolean busy = true;
+		final List<Integer> levels = new ArrayList<Integer>();
+
+		@Override
+		public boolean isBusy() {
+			return busy;
+		}
+
+		@Override
+		public void onLevelChanged(int level) {
+			levels.add(level);
+		}
+
+	}
+
+	public static void main(String[] args) {
+		DroppingFrameSource frameSource = new DroppingFrameSource();
+		Recorder recorder = new Recorder();
+		FrameRateGovernor governor = new FrameRateGovernor(frameSource, recorder, 1000f / FRAME_MILLIS, DROP_BUDGET);
+		governor.start();
+
+		// within the budget
+		frameSource.dropRatio = 0.05f;
+		frameSource.display.advance(WINDOW_MILLIS * 10);
+		report("5% dropped", governor);
+		check(governor.getLevel() == FrameRateGovernor.LEVEL_NORMAL, "stepped down within the budget");
+		check(governor.getDroppedFrames() > 0, "no drops measured");
+
+		// over the budget: one level per window down to the last
+		frameSource.dropRatio = 0.3f;
+		frameSource.display.advance(WINDOW_MILLIS * 10);
+		report("30% dropped", governor);
+		check(governor.getLevel() == FrameRateGovernor.LEVEL_SKIP, "not at the last level");
+		check(recorder.levels.toString().equals("[1, 2, 3]"), "levels " + recorder.levels);
+
+		// idle, dropping every frame: nothing is measured
+		recorder.busy = false;
+		frameSource.dropRatio = 0.9f;
+		long frames = governor.getMeasuredFrames();
+		frameSource.display.advance(WINDOW_MILLIS * 10);
+		check(governor.getMeasuredFrames() == frames, "measured while idle");
+		check(governor.getLevel() == FrameRateGovernor.LEVEL_SKIP, "changed level while idle");
+
+		// headroom: one level per five windows, back to normal
+		recorder.busy = true;
+		frameSource.dropRatio = 0;
+		frameSource.display.advance(WINDOW_MILLIS * 3);
+		check(governor.getLevel() == FrameRateGovernor.LEVEL_SKIP, "restored a level too soon");
+		frameSource.display.advance(WINDOW_MILLIS * 30);
+		report("no drops", governor);
+		check(governor.getLevel() == FrameRateGovernor.LEVEL_NORMAL, "not restored");
+		check(recorder.levels.toString().equals("[1, 2, 3, 2, 1, 0]"), "levels " + recorder.levels);
+		check(governor.getDowngrades() == 3 && governor.getUpgrades() == 3, "downgrades or upgrades " + governor);
+
+		governor.stop();
+		frames = governor.getMeasuredFrames();
+		frameSource.display.advance(WINDOW_MILLIS * 10);
+		check(governor.getMeasuredFrames() == frames, "measured after stop");
+		System.out.println("FrameRateGovernorCheck: OK");
+	}
+
+	private static void report(String phase, FrameRateGovernor governor) {
+		System.out.println(phase + ": " + governor + ", last window dropped " + Math.round(governor.getLastDropRatio() * 100) + "%");
+	}
+
+	private static void check(boolean condition, String message) {
+		if (!condition) {
+			throw new AssertionError(message);
+		}
+	}
+
+}
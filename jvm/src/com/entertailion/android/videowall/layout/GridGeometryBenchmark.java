@@ -0,0 +1,147 @@
+/*
+ * Copyright (C) 2013 ENTERTAILION LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.entertailion.android.videowall.layout;
+
+import com.entertailion.android.videowall.utils.Benchmark;
+
+/**
+ * Measures the cost of a layout pass of the wall at 2, 4, 8 and 12 rows on a
+ * 1080p display: the old pass, which computed the diagonal offset of every
+ * cell and stored its visibility as a boxed tag, against laying the cells out
+ * from the tables of {@link GridGeometry}, and the cost of computing those
+ * tables once per size. A stand-in for the image views records the bounds.
+ */
+public class GridGeometryBenchmark {
+
+	private static final int DISPLAY_WIDTH = 1920;
+	private static final int DISPLAY_HEIGHT = 1080;
+	private static final int PADDING = 2;
+	private static final double THUMBNAIL_ASPECT_RATIO = 16 / 9d;
+	private static final int LAYOUTS = 10000;
+
+	private static class CellView {
+
+		int left, top, right, bottom;
+		Object tag;
+
+		void layout(int left, int top, int right, int bottom) {
+			this.left = left;
+			this.top = top;
+			this.right = right;
+			this.bottom = bottom;
+		}
+
+		int getLeft() {
+			return left;
+		}
+
+		void setTag(Object tag) {
+			this.tag = tag;
+		}
+
+	}
+
+	public static void main(String[] args) {
+		int[] rowCounts = { 2, 4, 8, 12 };
+		for (int rows : rowCounts) {
+			final int imageHeight = DISPLAY_HEIGHT / rows - PADDING;
+			final int imageWidth = (int) (imageHeight * THUMBNAIL_ASPECT_RATIO);
+			// as in ImageWallView.onSizeChanged()
+			final int numberOfColumns = DISPLAY_WIDTH / (imageWidth + PADDING) + 2;
+			final int numberOfRows = DISPLAY_HEIGHT / (imageHeight + PADDING) + (DISPLAY_HEIGHT % (imageHeight + PADDING) == 0 ? 0 : 1);
+			final CellView[] images = new CellView[numberOfColumns * numberOfRows];
+			for (int i = 0; i < images.length; i++) {
+				images[i] = new CellView();
+			}
+			final GridGeometry geometry = new GridGeometry();
+			geometry.compute(numberOfColumns, numberOfRows, imageWidth, imageHeight, PADDING, imageWidth, imageHeight, DISPLAY_WIDTH,
+					DISPLAY_HEIGHT);
+			String size = numberOfRows + " rows, " + images.length + " cells";
+
+			new Benchmark("computed per layout, " + size) {
+
+				@Override
+				protected long run(int operations) {
+					long sum = 0;
+					for (int i = 0; i < operations; i++) {
+						for (int col = 0; col < numberOfColumns; col++) {
+							for (int row = 0; row < numberOfRows; row++) {
+								int x = (col - 1) * (imageWidth + PADDING) + (row * (imageWidth / numberOfRows));
+								int y = row * (imageHeight + PADDING);
+								CellView imageView = images[col * numberOfRows + row];
+								imageView.layout(x, y, x + imageWidth, y + imageHeight);
+								imageView.setTag(isTotallyVisible(x, y, x + imageWidth, y + imageHeight));
+							}
+						}
+						sum += images[i % images.length].getLeft() + (((Boolean) images[i % images.length].tag) ? 1 : 0);
+					}
+					return sum;
+				}
+
+			}.measure(LAYOUTS);
+			new Benchmark("from tables per layout, " + size) {
+
+				@Override
+				protected long run(int operations) {
+					long sum = 0;
+					for (int i = 0; i < operations; i++) {
+						int numberOfCells = geometry.getNumberOfCells();
+						for (int elementIdx = 0; elementIdx < numberOfCells; elementIdx++) {
+							images[elementIdx].layout(geometry.getLeft(elementIdx), geometry.getTop(elementIdx), geometry.getRight(elementIdx),
+									geometry.getBottom(elementIdx));
+						}
+						int elementIdx = i % numberOfCells;
+						sum += images[elementIdx].getLeft() + geometry.getVisibility(elementIdx);
+					}
+					return sum;
+				}
+
+			}.measure(LAYOUTS);
+			new Benchmark("tables once per size, " + size) {
+
+				@Override
+				protected long run(int operations) {
+					long sum = 0;
+					for (int i = 0; i < operations; i++) {
+						geometry.compute(numberOfColumns, numberOfRows, imageWidth, imageHeight, PADDING, imageWidth, imageHeight, DISPLAY_WIDTH,
+								DISPLAY_HEIGHT);
+						sum += geometry.getLeft(i % geometry.getNumberOfCells());
+					}
+					return sum;
+				}
+
+			}.measure(LAYOUTS);
+		}
+		System.out.println("sink " + Benchmark.getSink());
+	}
+
+	/**
+	 * The visibility test of the old layout pass.
+	 */
+	private static boolean isTotallyVisible(int x1, int y1, int x2, int y2) {
+		if (x1 < 0 || x2 < 0 || y1 < 0 || y2 < 0) {
+			return false;
+		}
+		if (x1 > DISPLAY_WIDTH || x2 > DISPLAY_WIDTH) {
+			return false;
+		}
+		if (y1 > DISPLAY_HEIGHT || y2 > DISPLAY_HEIGHT) {
+			return false;
+		}
+		return true;
+	}
+
+}
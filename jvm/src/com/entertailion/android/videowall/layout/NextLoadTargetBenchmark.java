@@ -0,0 +1,124 @@
+/*
+ * Copyright (C) 2013 ENTERTAILION LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.entertailion.android.videowall.layout;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+import com.entertailion.android.videowall.utils.Benchmark;
+import com.entertailion.android.videowall.utils.IntIndexSet;
+
+/**
+ * Compares picking the cell for the next video from the index sets of
+ * {@link ImageWallView} against the rejection sampling loop it replaced,
+ * which re-read boxed tags and visibility until it hit a totally visible cell
+ * and allocated a pair for the result. The old loop is reproduced here on
+ * plain arrays, with a stand-in for android.util.Pair.
+ */
+public class NextLoadTargetBenchmark {
+
+	private static final int ROWS = 12;
+	private static final int COLUMNS = 21;
+	private static final int OPERATIONS = 100000;
+	private static final int VISIBLE = 0;
+	private static final int INVISIBLE = 4;
+
+	private static class Pair<F, S> {
+
+		final F first;
+		final S second;
+
+		Pair(F first, S second) {
+			this.first = first;
+			this.second = second;
+		}
+
+	}
+
+	public static void main(String[] args) {
+		// the share of the cells totally on screen; the rest overlap an edge
+		int[] percents = { 100, 50, 10, 2 };
+		for (int percent : percents) {
+			final int cells = ROWS * COLUMNS;
+			final Object[] tags = new Object[cells];
+			final int[] visibility = new int[cells];
+			final List<Integer> unInitializedImages = new ArrayList<Integer>();
+			final IntIndexSet totallyVisibleImages = new IntIndexSet(cells);
+			final IntIndexSet unInitializedTotallyVisibleImages = new IntIndexSet(cells);
+			Random layout = new Random(percent);
+			for (int i = 0; i < cells; i++) {
+				boolean totallyVisible = i < Math.max(1, cells * percent / 100);
+				tags[i] = totallyVisible;
+				visibility[i] = VISIBLE;
+				totallyVisibleImages.set(i, totallyVisible);
+			}
+			// the cell of the playing video is hidden
+			int playing = layout.nextInt(totallyVisibleImages.size());
+			visibility[playing] = INVISIBLE;
+			totallyVisibleImages.remove(playing);
+			if (totallyVisibleImages.isEmpty()) {
+				continue;
+			}
+
+			final Random random = new Random(42);
+			double old = new Benchmark("rejection loop, " + percent + "% totally visible") {
+
+				@Override
+				protected long run(int operations) {
+					long sum = 0;
+					for (int i = 0; i < operations; i++) {
+						int nextElement;
+						boolean totallyVisible = true;
+						do {
+							if (unInitializedImages.isEmpty()) {
+								nextElement = random.nextInt(cells);
+							} else {
+								nextElement = unInitializedImages.get(random.nextInt(unInitializedImages.size()));
+							}
+							totallyVisible = (Boolean) tags[nextElement];
+						} while (visibility[nextElement] != VISIBLE || !totallyVisible);
+						Pair<Integer, Integer> target = new Pair<Integer, Integer>(nextElement / ROWS, nextElement % ROWS);
+						sum += target.first + target.second;
+					}
+					return sum;
+				}
+
+			}.measure(OPERATIONS);
+			double indexed = new Benchmark("index sets, " + percent + "% totally visible") {
+
+				@Override
+				protected long run(int operations) {
+					long sum = 0;
+					for (int i = 0; i < operations; i++) {
+						IntIndexSet candidates = unInitializedTotallyVisibleImages;
+						if (candidates.isEmpty()) {
+							candidates = totallyVisibleImages;
+						}
+						int elementIdx = candidates.random(random);
+						sum += elementIdx / ROWS + elementIdx % ROWS;
+					}
+					return sum;
+				}
+
+			}.measure(OPERATIONS);
+			System.out.println(String.format(Locale.US, "speed-up %.1fx", old / indexed));
+		}
+		System.out.println("sink " + Benchmark.getSink());
+	}
+
+}
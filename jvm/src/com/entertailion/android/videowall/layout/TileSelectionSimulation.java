@@ -0,0 +1,143 @@
+/*
+ * Copyright (C) 2013 ENTERTAILION LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.entertailion.android.videowall.layout;
+
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * Simulates a filled wall refreshing its cells under each tile selection
+ * policy and reports, per policy and wall size:
+ *
+ * <ul>
+ * <li>cover: the refreshes, in multiples of the number of cells, until every
+ * cell has been refreshed once; 1.00 is ideal.</li>
+ * <li>coverage: the share of the cells refreshed after as many refreshes as
+ * there are cells.</li>
+ * <li>fairness: Jain's index of the refresh counts per cell, 1 when every cell
+ * is refreshed equally often.</li>
+ * <li>stalest: the longest time a cell went without a refresh, in multiples
+ * of the number of cells.</li>
+ * <li>distance: the mean distance between consecutive picks, in cells.</li>
+ * </ul>
+ *
+ * As on the wall, a cell picked to play a video is not eligible while it
+ * plays, and the cells off screen are never eligible.
+ */
+public class TileSelectionSimulation {
+
+	private static final int DISPLAY_WIDTH = 1920;
+	private static final int DISPLAY_HEIGHT = 1080;
+	private static final int PADDING = 2;
+	private static final double THUMBNAIL_ASPECT_RATIO = 16 / 9d;
+	// refreshes simulated, in multiples of the number of cells
+	private static final int ROUNDS = 50;
+	// one refresh in this many starts a video, which plays for as many
+	private static final int VIDEO_EVERY = 10;
+
+	public static void main(String[] args) {
+		String[] names = { TileSelectionPolicies.RANDOM, TileSelectionPolicies.LEAST_RECENT, TileSelectionPolicies.SPREAD };
+		int[] rowCounts = { 4, 8, 12 };
+		System.out.println(String.format(Locale.US, "%-14s %6s %7s %9s %9s %8s %9s %8s", "policy", "rows", "cells", "cover", "coverage",
+				"fairness", "stalest", "distance"));
+		for (int rows : rowCounts) {
+			for (String name : names) {
+				simulate(name, rows);
+			}
+		}
+	}
+
+	private static void simulate(String name, int rows) {
+		int imageHeight = DISPLAY_HEIGHT / rows - PADDING;
+		int imageWidth = (int) (imageHeight * THUMBNAIL_ASPECT_RATIO);
+		int numberOfColumns = DISPLAY_WIDTH / (imageWidth + PADDING) + 2;
+		int numberOfRows = DISPLAY_HEIGHT / (imageHeight + PADDING) + (DISPLAY_HEIGHT % (imageHeight + PADDING) == 0 ? 0 : 1);
+		GridGeometry geometry = new GridGeometry();
+		geometry.compute(numberOfColumns, numberOfRows, imageWidth, imageHeight, PADDING, imageWidth, imageHeight, DISPLAY_WIDTH,
+				DISPLAY_HEIGHT);
+
+		TileSelectionPolicy policy = TileSelectionPolicies.create(name, new Random(42));
+		policy.reset(numberOfColumns, numberOfRows);
+		int numberOfCells = geometry.getNumberOfCells();
+		int cells = 0;
+		for (int elementIdx = 0; elementIdx < numberOfCells; elementIdx++) {
+			if (geometry.getVisibility(elementIdx) != GridGeometry.OFF_SCREEN) {
+				policy.set(elementIdx, true);
+				cells++;
+			}
+		}
+
+		long[] refreshCounts = new long[numberOfCells];
+		long[] lastRefreshed = new long[numberOfCells];
+		Arrays.fill(lastRefreshed, -1);
+		long stalest = 0;
+		long coveredAt = -1;
+		int covered = 0;
+		int coveredAfterRound = 0;
+		double distance = 0;
+		int previous = -1;
+		int playing = -1;
+		long playingUntil = 0;
+		long refreshes = (long) ROUNDS * cells;
+		for (long tick = 0; tick < refreshes; tick++) {
+			if (playing >= 0 && tick >= playingUntil) {
+				policy.set(playing, true);
+				playing = -1;
+			}
+			int elementIdx = policy.select();
+			if (elementIdx < 0) {
+				throw new AssertionError(name + " picked no cell");
+			}
+			policy.onRefreshed(elementIdx);
+			if (refreshCounts[elementIdx]++ == 0 && ++covered == cells) {
+				coveredAt = tick + 1;
+			}
+			stalest = Math.max(stalest, tick - lastRefreshed[elementIdx]);
+			lastRefreshed[elementIdx] = tick;
+			if (tick + 1 == cells) {
+				coveredAfterRound = covered;
+			}
+			if (previous >= 0) {
+				distance += Math.hypot(elementIdx / numberOfRows - previous / numberOfRows, elementIdx % numberOfRows - previous % numberOfRows);
+			}
+			previous = elementIdx;
+			if (playing < 0 && tick % VIDEO_EVERY == 0) {
+				playing = elementIdx;
+				playingUntil = tick + VIDEO_EVERY;
+				policy.set(playing, false);
+			}
+		}
+		// the cells not refreshed since their last refresh, up to the end
+		for (int elementIdx = 0; elementIdx < numberOfCells; elementIdx++) {
+			if (geometry.getVisibility(elementIdx) != GridGeometry.OFF_SCREEN) {
+				stalest = Math.max(stalest, refreshes - 1 - lastRefreshed[elementIdx]);
+			}
+		}
+
+		double sum = 0;
+		double sumOfSquares = 0;
+		for (long count : refreshCounts) {
+			sum += count;
+			sumOfSquares += (double) count * count;
+		}
+		double fairness = sum * sum / (cells * sumOfSquares);
+		String cover = coveredAt >= 0 ? String.format(Locale.US, "%.2f", (double) coveredAt / cells) : "never";
+		System.out.println(String.format(Locale.US, "%-14s %6d %7d %9s %8.0f%% %8.3f %9.2f %8.2f", name, numberOfRows, cells, cover,
+				coveredAfterRound * 100.0 / cells, fairness, (double) stalest / cells, distance / (refreshes - 1)));
+	}
+
+}
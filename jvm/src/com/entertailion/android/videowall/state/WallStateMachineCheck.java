@@ -0,0 +1,171 @@
+/*
+ * Copyright (C) 2013 ENTERTAILION LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.entertailion.android.videowall.state;
+
+import static com.entertailion.android.videowall.state.WallEvent.CUE;
+import static com.entertailion.android.videowall.state.WallEvent.ENDED;
+import static com.entertailion.android.videowall.state.WallEvent.ERROR;
+import static com.entertailion.android.videowall.state.WallEvent.FLIPPED_OUT;
+import static com.entertailion.android.videowall.state.WallEvent.FLIP_OUT;
+import static com.entertailion.android.videowall.state.WallEvent.HANDOFF;
+import static com.entertailion.android.videowall.state.WallEvent.LOADED;
+import static com.entertailion.android.videowall.state.WallEvent.PLAY;
+import static com.entertailion.android.videowall.state.WallEvent.RESET;
+import static com.entertailion.android.videowall.state.WallEvent.START;
+import static com.entertailion.android.videowall.state.WallEvent.WALL_FILLED;
+import static com.entertailion.android.videowall.state.WallState.LOADING_THUMBNAILS;
+import static com.entertailion.android.videowall.state.WallState.UNINITIALIZED;
+import static com.entertailion.android.videowall.state.WallState.VIDEO_BEING_FLIPPED_OUT;
+import static com.entertailion.android.videowall.state.WallState.VIDEO_CUED;
+import static com.entertailion.android.videowall.state.WallState.VIDEO_ENDED;
+import static com.entertailion.android.videowall.state.WallState.VIDEO_FLIPPED_OUT;
+import static com.entertailion.android.videowall.state.WallState.VIDEO_LOADING;
+import static com.entertailion.android.videowall.state.WallState.VIDEO_PLAYING;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Checks the transition table of {@link WallStateMachine} against the table in
+ * its documentation, the ordering of events fired by a listener and the
+ * time-in-state statistics. Throws an AssertionError on the first failure.
+ */
+public class WallStateMachineCheck {
+
+	private static class ManualClock implements StateMachine.Clock {
+
+		long now;
+
+		@Override
+		public long uptimeMillis() {
+			return now;
+		}
+
+	}
+
+	public static void main(String[] args) {
+		checkTable();
+		checkQueuedEvents();
+		checkTimeInState();
+		System.out.println("WallStateMachineCheck: OK");
+	}
+
+	/**
+	 * Every state and event pair leads to the documented state, or is ignored.
+	 */
+	private static void checkTable() {
+		for (WallState from : WallState.values()) {
+			for (WallEvent event : WallEvent.values()) {
+				WallStateMachine machine = new WallStateMachine(new ManualClock());
+				driveTo(machine, from);
+				WallState expected = expectedTarget(from, event);
+				check(machine.canFire(event) == (expected != null), from + " canFire " + event);
+				machine.fire(event);
+				WallState actual = machine.getState();
+				if (expected == null) {
+					check(actual == from, from + " --" + event + "-> should be ignored, was " + actual);
+					check(machine.getIgnoredCount() == 1, from + " --" + event + "-> not counted as ignored");
+				} else {
+					check(actual == expected, from + " --" + event + "-> " + actual + ", expected " + expected);
+				}
+			}
+		}
+	}
+
+	/**
+	 * An event fired by the listener is handled after the current transition.
+	 */
+	private static void checkQueuedEvents() {
+		final WallStateMachine machine = new WallStateMachine(new ManualClock());
+		final List<String> transitions = new ArrayList<String>();
+		machine.setListener(new StateMachine.Listener<WallState, WallEvent>() {
+
+			@Override
+			public void onTransition(WallState from, WallEvent event, WallState to, long timeInState) {
+				transitions.add(from + ">" + to);
+				if (to == LOADING_THUMBNAILS) {
+					machine.fire(WALL_FILLED);
+					check(machine.is(LOADING_THUMBNAILS), "event handled during a transition");
+				}
+			}
+
+		});
+		machine.fire(START);
+		check(machine.is(VIDEO_FLIPPED_OUT), "queued event not handled");
+		check(transitions.size() == 2 && transitions.get(0).equals("UNINITIALIZED>LOADING_THUMBNAILS"), "transitions " + transitions);
+	}
+
+	private static void checkTimeInState() {
+		ManualClock clock = new ManualClock();
+		WallStateMachine machine = new WallStateMachine(clock);
+		machine.fire(START);
+		clock.now += 250;
+		check(machine.getTimeInState() == 250, "time in state " + machine.getTimeInState());
+		machine.fire(WALL_FILLED);
+		check(machine.getTimeInStateHistogram(LOADING_THUMBNAILS).getCount() == 1, "time in state not recorded");
+		check(machine.getTimeInStateHistogram(LOADING_THUMBNAILS).getMax() == 250, "time in state recorded wrongly");
+		machine.resetStatistics();
+		check(machine.getTimeInStateHistogram(LOADING_THUMBNAILS).getCount() == 0, "statistics not reset");
+	}
+
+	/**
+	 * The table from the documentation of {@link WallStateMachine}.
+	 */
+	private static WallState expectedTarget(WallState from, WallEvent event) {
+		if (event == RESET) {
+			return UNINITIALIZED;
+		}
+		switch (from) {
+		case UNINITIALIZED:
+			return event == START ? LOADING_THUMBNAILS : null;
+		case LOADING_THUMBNAILS:
+			return event == WALL_FILLED ? VIDEO_FLIPPED_OUT : null;
+		case VIDEO_FLIPPED_OUT:
+			return event == CUE ? VIDEO_LOADING : event == LOADED ? VIDEO_CUED : null;
+		case VIDEO_LOADING:
+			return event == LOADED ? VIDEO_CUED : event == ERROR ? VIDEO_ENDED : null;
+		case VIDEO_CUED:
+			return event == PLAY ? VIDEO_PLAYING : event == ERROR ? VIDEO_ENDED : null;
+		case VIDEO_PLAYING:
+			return event == ENDED || event == ERROR ? VIDEO_ENDED : event == HANDOFF ? VIDEO_CUED : null;
+		case VIDEO_ENDED:
+			return event == FLIP_OUT ? VIDEO_BEING_FLIPPED_OUT : null;
+		case VIDEO_BEING_FLIPPED_OUT:
+			return event == FLIPPED_OUT ? VIDEO_FLIPPED_OUT : null;
+		default:
+			return null;
+		}
+	}
+
+	/**
+	 * Fire the events of a normal run of the wall up to the given state.
+	 */
+	private static void driveTo(WallStateMachine machine, WallState state) {
+		WallEvent[] path = { START, WALL_FILLED, CUE, LOADED, PLAY, ENDED, FLIP_OUT };
+		for (int i = 0; i < path.length && !machine.is(state); i++) {
+			machine.fire(path[i]);
+		}
+		check(machine.is(state), "could not reach " + state);
+		machine.resetStatistics();
+	}
+
+	private static void check(boolean condition, String message) {
+		if (!condition) {
+			throw new AssertionError(message);
+		}
+	}
+
+}
@@ -0,0 +1,88 @@
+/*
+ * Copyright (C) 2013 ENTERTAILION LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.entertailion.android.videowall.utils;
+
+import java.lang.management.ManagementFactory;
+import java.util.Locale;
+
+/**
+ * A minimal micro-benchmark: the operations are run in warm-up rounds until
+ * the JIT has settled, then timed over several rounds, reporting the best
+ * time per operation and the bytes allocated per operation where the JVM
+ * can count them.
+ */
+public abstract class Benchmark {
+
+	private static final int WARM_UP_ROUNDS = 10;
+	private static final int ROUNDS = 10;
+
+	// the results are summed so the JIT can't drop the work
+	private static long sink;
+
+	private final String name;
+
+	public Benchmark(String name) {
+		this.name = name;
+	}
+
+	/**
+	 * Run the operation the given number of times.
+	 *
+	 * @return a value depending on every result.
+	 */
+	protected abstract long run(int operations);
+
+	/**
+	 * @return the best nanoseconds per operation.
+	 */
+	public double measure(int operations) {
+		for (int i = 0; i < WARM_UP_ROUNDS; i++) {
+			sink += run(operations);
+		}
+		long best = Long.MAX_VALUE;
+		long allocatedBefore = getAllocatedBytes();
+		for (int i = 0; i < ROUNDS; i++) {
+			long start = System.nanoTime();
+			sink += run(operations);
+			best = Math.min(best, System.nanoTime() - start);
+		}
+		long allocated = getAllocatedBytes() - allocatedBefore;
+		double nanos = (double) best / operations;
+		String bytes = allocatedBefore >= 0 ? String.format(Locale.US, "%.1f", (double) allocated / ROUNDS / operations) : "n/a";
+		System.out.println(String.format(Locale.US, "%-44s %10.1f ns/op %8s bytes/op", name, nanos, bytes));
+		return nanos;
+	}
+
+	/**
+	 * @return the bytes allocated by the current thread, or -1 if the JVM
+	 *         does not count them.
+	 */
+	private static long getAllocatedBytes() {
+		java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+		if (bean instanceof com.sun.management.ThreadMXBean) {
+			return ((com.sun.management.ThreadMXBean) bean).getThreadAllocatedBytes(Thread.currentThread().getId());
+		}
+		return -1;
+	}
+
+	/**
+	 * @return the sum of all results, to print at the end of a run.
+	 */
+	public static long getSink() {
+		return sink;
+	}
+
+}
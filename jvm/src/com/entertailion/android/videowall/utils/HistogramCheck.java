@@ -0,0 +1,114 @@
+/*
+ * Copyright (C) 2013 ENTERTAILION LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.entertailion.android.videowall.utils;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Checks the buckets and percentiles of {@link Histogram} against exact
+ * values computed from the sorted samples. Throws an AssertionError on the
+ * first failure.
+ */
+public class HistogramCheck {
+
+	private static final long MAX_VALUE = 10 * 60 * 1000;
+	private static final int PRECISION = 5;
+
+	public static void main(String[] args) {
+		checkBuckets();
+		checkExactValues();
+		checkPercentiles();
+		checkLimits();
+		System.out.println("HistogramCheck: OK");
+	}
+
+	/**
+	 * The buckets are contiguous and no wider than the precision allows.
+	 */
+	private static void checkBuckets() {
+		Histogram histogram = new Histogram(MAX_VALUE, PRECISION);
+		for (int i = 1; i < histogram.getBucketCount(); i++) {
+			long lower = histogram.getBucketLowerBound(i);
+			long previous = histogram.getBucketLowerBound(i - 1);
+			check(lower > previous, "bucket " + i + " does not follow bucket " + (i - 1));
+			long width = lower - previous;
+			check(width == 1 || width * (1 << (PRECISION - 1)) <= previous, "bucket " + (i - 1) + " is " + width + " wide at " + previous);
+		}
+		check(histogram.getBucketLowerBound(histogram.getBucketCount() - 1) <= MAX_VALUE, "last bucket above the maximum");
+	}
+
+	/**
+	 * Values below 2^precision are counted exactly.
+	 */
+	private static void checkExactValues() {
+		Histogram histogram = new Histogram(MAX_VALUE, PRECISION);
+		for (long value = 0; value < (1 << PRECISION); value++) {
+			histogram.record(value);
+			check(histogram.getBucketCountAt((int) value) == 1, "value " + value + " not in its own bucket");
+		}
+		check(histogram.getMin() == 0 && histogram.getMax() == (1 << PRECISION) - 1, "min or max " + histogram);
+		check(histogram.getValueAtPercentile(50) == (1 << (PRECISION - 1)) - 1, "median " + histogram);
+	}
+
+	/**
+	 * The percentiles are within the relative error of the buckets.
+	 */
+	private static void checkPercentiles() {
+		Random random = new Random(42);
+		Histogram histogram = new Histogram(MAX_VALUE, PRECISION);
+		long[] samples = new long[100000];
+		long total = 0;
+		for (int i = 0; i < samples.length; i++) {
+			// roughly log-normal, like latencies
+			samples[i] = Math.min(MAX_VALUE, (long) Math.exp(6 + random.nextGaussian()));
+			histogram.record(samples[i]);
+			total += samples[i];
+		}
+		Arrays.sort(samples);
+		check(histogram.getCount() == samples.length, "count " + histogram.getCount());
+		check(histogram.getMean() == total / samples.length, "mean " + histogram.getMean());
+		check(histogram.getMax() == samples[samples.length - 1], "max " + histogram.getMax());
+		double[] percentiles = { 50, 90, 99, 99.9, 100 };
+		for (double percentile : percentiles) {
+			long exact = samples[(int) Math.ceil(samples.length * percentile / 100) - 1];
+			long value = histogram.getValueAtPercentile(percentile);
+			check(value >= exact && value - exact <= exact / (1 << (PRECISION - 1)), "p" + percentile + "=" + value + ", exact " + exact);
+		}
+		histogram.reset();
+		check(histogram.getCount() == 0 && histogram.getValueAtPercentile(50) == 0 && histogram.getMin() == 0, "not reset " + histogram);
+	}
+
+	/**
+	 * Negative values count as 0 and values above the maximum in the last
+	 * bucket.
+	 */
+	private static void checkLimits() {
+		Histogram histogram = new Histogram(MAX_VALUE, PRECISION);
+		histogram.record(-5);
+		histogram.record(MAX_VALUE * 3);
+		check(histogram.getBucketCountAt(0) == 1, "negative value");
+		check(histogram.getBucketCountAt(histogram.getBucketCount() - 1) == 1, "value above the maximum");
+		check(histogram.getMax() == MAX_VALUE * 3, "max " + histogram.getMax());
+	}
+
+	private static void check(boolean condition, String message) {
+		if (!condition) {
+			throw new AssertionError(message);
+		}
+	}
+
+}
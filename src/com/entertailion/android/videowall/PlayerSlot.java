@@ -0,0 +1,149 @@
+/*
+ * Copyright (C) 2013 ENTERTAILION LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.entertailion.android.videowall;
+
+import android.app.Activity;
+import android.os.SystemClock;
+import android.view.ViewGroup;
+
+import com.entertailion.android.videowall.source.VideoPlayer;
+import com.entertailion.android.videowall.source.VideoSource;
+import com.entertailion.android.videowall.thumbnail.PooledBitmapDrawable;
+import com.entertailion.android.videowall.thumbnail.Thumbnail;
+
+/**
+ * A player of the wall together with the view it renders into and the video
+ * it has been loaded with. The thumbnail of that video is reserved by the
+ * slot until it is flipped in.
+ */
+class PlayerSlot {
+
+	private final ViewGroup view;
+	private final VideoSource source;
+	private VideoPlayer player;
+	private Thumbnail thumbnail;
+	private String videoId;
+	private boolean cued;
+	private long cueTime;
+
+	PlayerSlot(ViewGroup view, VideoSource source) {
+		this.view = view;
+		this.source = source;
+	}
+
+	ViewGroup getView() {
+		return view;
+	}
+
+	void attach(Activity activity) {
+		source.attach(activity, view);
+	}
+
+	void initialize(VideoSource.OnInitializedListener listener) {
+		source.initialize(listener);
+	}
+
+	void detach() {
+		clear();
+		source.detach();
+		player = null;
+	}
+
+	VideoPlayer getPlayer() {
+		return player;
+	}
+
+	void setPlayer(VideoPlayer player) {
+		this.player = player;
+	}
+
+	boolean isReady() {
+		return player != null;
+	}
+
+	/**
+	 * Load the video of a thumbnail, taking over the caller's reference to
+	 * the thumbnail.
+	 */
+	void cue(Thumbnail thumbnail) {
+		clear();
+		this.thumbnail = thumbnail;
+		videoId = thumbnail.getVideoId();
+		cueTime = SystemClock.uptimeMillis();
+		player.cueVideo(videoId);
+	}
+
+	void setCued(String videoId) {
+		if (videoId != null && videoId.equals(this.videoId)) {
+			cued = true;
+		}
+	}
+
+	String getVideoId() {
+		return videoId;
+	}
+
+	/**
+	 * @return true if no video has been loaded.
+	 */
+	boolean isEmpty() {
+		return videoId == null;
+	}
+
+	boolean isCued() {
+		return cued;
+	}
+
+	/**
+	 * @return when the video was cued, i.e. asked to load, see
+	 *         {@link SystemClock#uptimeMillis()}.
+	 */
+	long getCueTime() {
+		return cueTime;
+	}
+
+	boolean hasThumbnail() {
+		return thumbnail != null;
+	}
+
+	/**
+	 * @return the reserved thumbnail; the caller takes over its reference.
+	 */
+	Thumbnail takeThumbnail() {
+		Thumbnail result = thumbnail;
+		thumbnail = null;
+		return result;
+	}
+
+	void pause() {
+		if (player != null && player.isPlaying()) {
+			player.pause();
+		}
+	}
+
+	/**
+	 * Forget the loaded video and release its thumbnail.
+	 */
+	void clear() {
+		if (thumbnail != null) {
+			PooledBitmapDrawable.release(thumbnail.getDrawable());
+			thumbnail = null;
+		}
+		videoId = null;
+		cued = false;
+	}
+
+}
@@ -15,11 +15,16 @@
  */
 package com.entertailion.android.videowall;
 
+import java.util.List;
+
 import android.os.Bundle;
+import android.preference.ListPreference;
 import android.preference.Preference;
 import android.preference.Preference.OnPreferenceChangeListener;
 import android.preference.PreferenceActivity;
 
+import com.entertailion.android.videowall.animation.Effect;
+import com.entertailion.android.videowall.animation.EffectRegistry;
 import com.entertailion.android.videowall.utils.Analytics;
 
 /**
@@ -35,11 +40,6 @@ public class PreferencesActivity extends PreferenceActivity {
 	public static final String GENERAL_ROWS = "general.rows";
 	public static final String GENERAL_HIGHLIGHT = "general.highlight";
 
-	public static final String EFFECT_FLIP = "flip";
-	public static final String EFFECT_FADE = "fade";
-	public static final String EFFECT_RIGHT_LEFT = "right/left";
-	public static final String EFFECT_TOP_DOWN = "top/down";
-
 	public static final String BORDER_NONE = "none";
 	public static final String BORDER_THIN = "thin";
 	public static final String BORDER_THICK = "thick";
@@ -47,6 +47,9 @@ public class PreferencesActivity extends PreferenceActivity {
 	public static final String ROWS_TWO = "2";
 	public static final String ROWS_THREE = "3";
 	public static final String ROWS_FOUR = "4";
+	public static final String ROWS_EIGHT = "8";
+	public static final String ROWS_TWELVE = "12";
+	public static final String ROWS_SIXTEEN = "16";
 
 	@Override
 	protected void onCreate(Bundle savedInstanceState) {
@@ -54,40 +57,32 @@ public class PreferencesActivity extends PreferenceActivity {
 		addPreferencesFromResource(R.xml.preferences);
 
 		// General
-		Preference preference = (Preference) findPreference(GENERAL_EFFECT);
-		String effect = preference.getSharedPreferences().getString(GENERAL_EFFECT, EFFECT_FLIP);
-		if (effect.equals(EFFECT_FLIP)) {
-			preference.setSummary(getString(R.string.preferences_general_effect_flip));
-		} else if (effect.equals(EFFECT_FADE)) {
-			preference.setSummary(getString(R.string.preferences_general_effect_fade));
-		} else if (effect.equals(EFFECT_RIGHT_LEFT)) {
-			preference.setSummary(getString(R.string.preferences_general_effect_right_left));
-		} else if (effect.equals(EFFECT_TOP_DOWN)) {
-			preference.setSummary(getString(R.string.preferences_general_effect_top_down));
+		// the effects offered are those of the registry
+		ListPreference effectPreference = (ListPreference) findPreference(GENERAL_EFFECT);
+		List<Effect> effects = EffectRegistry.getEffects();
+		CharSequence[] entries = new CharSequence[effects.size()];
+		CharSequence[] entryValues = new CharSequence[effects.size()];
+		for (int i = 0; i < entries.length; i++) {
+			entries[i] = getString(effects.get(i).getLabelId());
+			entryValues[i] = effects.get(i).getId();
 		}
-		preference.setOnPreferenceChangeListener(new OnPreferenceChangeListener() {
+		effectPreference.setEntries(entries);
+		effectPreference.setEntryValues(entryValues);
+		String effect = effectPreference.getSharedPreferences().getString(GENERAL_EFFECT, EffectRegistry.getDefault().getId());
+		effectPreference.setSummary(getString(EffectRegistry.get(effect).getLabelId()));
+		effectPreference.setOnPreferenceChangeListener(new OnPreferenceChangeListener() {
 
 			@Override
 			public boolean onPreferenceChange(Preference preference, Object newValue) {
-				if (newValue.equals(EFFECT_FLIP)) {
-					preference.setSummary(getString(R.string.preferences_general_effect_flip));
-					Analytics.logEvent(Analytics.EFFECT_FLIP);
-				} else if (newValue.equals(EFFECT_FADE)) {
-					preference.setSummary(getString(R.string.preferences_general_effect_fade));
-					Analytics.logEvent(Analytics.EFFECT_FADE);
-				} else if (newValue.equals(EFFECT_RIGHT_LEFT)) {
-					preference.setSummary(getString(R.string.preferences_general_effect_right_left));
-					Analytics.logEvent(Analytics.EFFECT_RIGHT_LEFT);
-				} else if (newValue.equals(EFFECT_TOP_DOWN)) {
-					preference.setSummary(getString(R.string.preferences_general_effect_top_down));
-					Analytics.logEvent(Analytics.EFFECT_TOP_DOWN);
-				}
+				Effect effect = EffectRegistry.get((String) newValue);
+				preference.setSummary(getString(effect.getLabelId()));
+				Analytics.logEvent(effect.getEvent());
 				return true;
 			}
 
 		});
 
-		preference = (Preference) findPreference(GENERAL_BORDER);
+		Preference preference = (Preference) findPreference(GENERAL_BORDER);
 		String border = preference.getSharedPreferences().getString(GENERAL_BORDER, BORDER_THIN);
 		if (border.equals(BORDER_NONE)) {
 			preference.setSummary(getString(R.string.preferences_general_border_none));
@@ -123,6 +118,12 @@ public class PreferencesActivity extends PreferenceActivity {
 			preference.setSummary(getString(R.string.preferences_general_rows_three));
 		} else if (rows.equals(ROWS_FOUR)) {
 			preference.setSummary(getString(R.string.preferences_general_rows_four));
+		} else if (rows.equals(ROWS_EIGHT)) {
+			preference.setSummary(getString(R.string.preferences_general_rows_eight));
+		} else if (rows.equals(ROWS_TWELVE)) {
+			preference.setSummary(getString(R.string.preferences_general_rows_twelve));
+		} else if (rows.equals(ROWS_SIXTEEN)) {
+			preference.setSummary(getString(R.string.preferences_general_rows_sixteen));
 		}
 		preference.setOnPreferenceChangeListener(new OnPreferenceChangeListener() {
 
@@ -137,6 +138,15 @@ public class PreferencesActivity extends PreferenceActivity {
 				} else if (newValue.equals(ROWS_FOUR)) {
 					preference.setSummary(getString(R.string.preferences_general_rows_four));
 					Analytics.logEvent(Analytics.ROWS_FOUR);
+				} else if (newValue.equals(ROWS_EIGHT)) {
+					preference.setSummary(getString(R.string.preferences_general_rows_eight));
+					Analytics.logEvent(Analytics.ROWS_EIGHT);
+				} else if (newValue.equals(ROWS_TWELVE)) {
+					preference.setSummary(getString(R.string.preferences_general_rows_twelve));
+					Analytics.logEvent(Analytics.ROWS_TWELVE);
+				} else if (newValue.equals(ROWS_SIXTEEN)) {
+					preference.setSummary(getString(R.string.preferences_general_rows_sixteen));
+					Analytics.logEvent(Analytics.ROWS_SIXTEEN);
 				}
 				return true;
 			}
@@ -18,17 +18,30 @@
 package com.entertailion.android.videowall;
 
 import static android.view.ViewGroup.LayoutParams.MATCH_PARENT;
+import static android.view.ViewGroup.LayoutParams.WRAP_CONTENT;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+
 import android.app.Activity;
 import android.app.Dialog;
 import android.content.Intent;
 import android.content.SharedPreferences;
 import android.os.Bundle;
 import android.os.Handler;
-import android.os.Message;
+import android.os.SystemClock;
 import android.preference.PreferenceManager;
+import android.text.format.DateUtils;
 import android.util.DisplayMetrics;
 import android.util.Log;
-import android.util.Pair;
 import android.view.KeyEvent;
 import android.view.LayoutInflater;
 import android.view.Menu;
@@ -41,24 +54,36 @@ import android.view.animation.Animation.AnimationListener;
 import android.view.animation.AnimationUtils;
 import android.widget.FrameLayout;
 import android.widget.ImageView;
+import android.widget.TextView;
 import android.widget.Toast;
 
-import com.entertailion.android.videowall.animation.FadingImageAnimationView;
-import com.entertailion.android.videowall.animation.FlipImageAnimationView;
+import com.entertailion.android.videowall.animation.Effect;
+import com.entertailion.android.videowall.animation.EffectRegistry;
+import com.entertailion.android.videowall.animation.FlipScheduler;
+import com.entertailion.android.videowall.animation.FrameRateGovernor;
+import com.entertailion.android.videowall.animation.FrameSources;
+import com.entertailion.android.videowall.animation.FrameStats;
 import com.entertailion.android.videowall.animation.ImageAnimationListener;
 import com.entertailion.android.videowall.animation.ImageAnimationView;
-import com.entertailion.android.videowall.animation.RightLeftImageAnimationView;
-import com.entertailion.android.videowall.animation.TopDownImageAnimationView;
+import com.entertailion.android.videowall.animation.ImageAnimationViewPool;
 import com.entertailion.android.videowall.layout.ImageWallView;
+import com.entertailion.android.videowall.source.SourceError;
+import com.entertailion.android.videowall.source.Sources;
+import com.entertailion.android.videowall.source.VideoPlayer;
+import com.entertailion.android.videowall.source.VideoSource;
+import com.entertailion.android.videowall.state.WallEvent;
+import com.entertailion.android.videowall.state.WallState;
+import com.entertailion.android.videowall.state.WallStateMachine;
+import com.entertailion.android.videowall.thumbnail.NegativeCache;
+import com.entertailion.android.videowall.thumbnail.PooledBitmapDrawable;
+import com.entertailion.android.videowall.thumbnail.Thumbnail;
+import com.entertailion.android.videowall.thumbnail.ThumbnailCache;
+import com.entertailion.android.videowall.thumbnail.ThumbnailDecoder;
+import com.entertailion.android.videowall.thumbnail.ThumbnailFetchPool;
 import com.entertailion.android.videowall.utils.Analytics;
+import com.entertailion.android.videowall.utils.MetricsRegistry;
 import com.entertailion.android.videowall.utils.Utils;
-import com.google.android.youtube.player.YouTubeInitializationResult;
 import com.google.android.youtube.player.YouTubeIntents;
-import com.google.android.youtube.player.YouTubePlayer;
-import com.google.android.youtube.player.YouTubePlayer.PlayerStyle;
-import com.google.android.youtube.player.YouTubePlayerFragment;
-import com.google.android.youtube.player.YouTubeThumbnailLoader;
-import com.google.android.youtube.player.YouTubeThumbnailView;
 
 /*
  * The app shows a video wall of thumbnail images for videos in a YouTube playlist. 
@@ -68,8 +93,7 @@ import com.google.android.youtube.player.YouTubeThumbnailView;
  * @see https://developers.google.com/youtube/android/player/
  */
 
-public class VideoWallActivity extends Activity implements ImageAnimationListener, YouTubePlayer.OnInitializedListener,
-		YouTubeThumbnailView.OnInitializedListener {
+public class VideoWallActivity extends Activity implements ImageAnimationListener {
 
 	private static final String LOG_TAG = "VideoWallActivity";
 
@@ -92,7 +116,8 @@ public class VideoWallActivity extends Activity implements ImageAnimationListene
 
 	private static final int INITIAL_FLIP_DURATION_MILLIS = 100;
 	private static final int FLIP_DURATION_MILLIS = 500;
-	private static final int FLIP_PERIOD_MILLIS = 2000;
+	// how much longer the time between flips gets when frames are dropped
+	private static final int GOVERNED_FLIP_PERIOD_FACTOR = 2;
 
 	// Identifiers for menu items
 	private static final int MENU_SETTINGS = Menu.FIRST + 1;
@@ -104,53 +129,118 @@ public class VideoWallActivity extends Activity implements ImageAnimationListene
 	public static final String PREFERENCES_NAME = "preferences";
 	public static final String FIRST_INSTALL = "first_install";
 	public static final String PLAYLIST = "playlist";
+	public static final String WALL_VIDEOS = "wall_videos";
+	// where the frame statistics are exported, in the files directory
+	private static final String FRAME_STATS_FILE = "frame_stats.csv";
+
+	// names of the metrics recorded by the activity
+	public static final String METRIC_CUE_LATENCY = "player.cue_ms";
+	public static final String METRIC_FLIP_LATENCY = "flip.duration_ms";
+	public static final String METRIC_GAP = "player.gap_ms";
+	public static final String METRIC_VISIBLE_FILL = "wall.visible_fill_ms";
+	public static final String METRIC_EMPTY_TICKS = "flip.empty_ticks";
+	public static final String METRIC_PLAYER_ERRORS = "player.errors.";
+	public static final String METRIC_MEMORY_HIT_PERCENT = "thumbnail_cache.memory_hit_percent";
+	public static final String METRIC_DISK_HIT_PERCENT = "thumbnail_cache.disk_hit_percent";
+	public static final String METRIC_GOVERNOR_LEVEL = "flip.governor_level";
+	public static final String METRIC_BLACKLIST_SIZE = "thumbnail.blacklist_size";
+	public static final String METRIC_ERROR_PERCENT = "thumbnail.error_percent";
+	private static final long[] LATENCY_BOUNDS = { 50, 100, 250, 500, 1000, 2000, 5000, 10000, 30000 };
+
+	// number of recently shown videos remembered to repaint the wall
+	private static final int MAX_WALL_VIDEOS = 100;
 
 	private ImageWallView imageWallView;
-	private Handler flipDelayHandler;
+	private FlipScheduler flipScheduler;
+	private FrameRateGovernor frameRateGovernor;
+	// frame statistics of the effects and their debug overlay, null unless
+	// enabled in config.xml
+	private FrameStats frameStats;
+	private TextView frameStatsView;
+
+	// metrics of the wall, logged periodically while the activity is resumed
+	private MetricsRegistry metrics;
+	private MetricsRegistry.BucketHistogram cueLatency;
+	private MetricsRegistry.BucketHistogram flipLatency;
+	private MetricsRegistry.BucketHistogram gapLatency;
+	private MetricsRegistry.BucketHistogram visibleFillLatency;
+	private MetricsRegistry.Counter emptyTicks;
+	private MetricsRegistry.Counter[] playerErrors;
+	private final Map<String, MetricsRegistry.Gauge> gauges = new HashMap<String, MetricsRegistry.Gauge>();
+	private final Handler metricsHandler = new Handler();
+	private final Runnable metricsRunnable = new Runnable() {
+
+		@Override
+		public void run() {
+			Log.d(LOG_TAG, "metrics: " + metrics.snapshot());
+			metricsHandler.postDelayed(this, getResources().getInteger(R.integer.metrics_snapshot_seconds) * DateUtils.SECOND_IN_MILLIS);
+		}
+
+	};
 
-	private ImageAnimationView imageAnimationView;
-	private YouTubeThumbnailView thumbnailView;
-	private YouTubeThumbnailLoader thumbnailLoader;
+	// the views of the flips running at once
+	private ImageAnimationViewPool animationPool;
+	private ThumbnailFetchPool thumbnailPool;
 
-	private YouTubePlayerFragment playerFragment;
-	private View playerView;
-	private YouTubePlayer player;
+	// the slot playing the wall's video, and the one loading the next video
+	// while it plays (null unless double buffered)
+	private PlayerSlot activeSlot;
+	private PlayerSlot standbySlot;
+	// dead air between the end of a video and the start of the next
+	private long videoEndedTime;
+	// time from starting the wall until its totally visible cells are filled
+	private long fillStartTime;
 
 	private Dialog errorDialog;
 
-	private int flippingCol;
-	private int flippingRow;
 	private int videoCol;
 	private int videoRow;
 
-	private boolean nextThumbnailLoaded;
+	// the flip of the cued video and the flip of the ended video, while
+	// they run
+	private ImageAnimationView cuedVideoView;
+	private ImageAnimationView flipOutView;
+	// the cued video has been flipped in and can start playing
+	private boolean cuedVideoFlipped;
 	private boolean activityResumed;
-	private State state;
-
-	private enum State {
-		UNINITIALIZED, LOADING_THUMBNAILS, VIDEO_FLIPPED_OUT, VIDEO_LOADING, VIDEO_CUED, VIDEO_PLAYING, VIDEO_ENDED, VIDEO_BEING_FLIPPED_OUT,
-	}
+	private final WallStateMachine stateMachine = new WallStateMachine();
 
 	private Animation fadeOut, fadeIn, fadeInSlow, fadeOutSlow;
 	private ImageView menuImageView, coverImageView, youtubeImageView, highlightImageView;
 	private View overlayView;
 	private SharedPreferences preferences;
+	private WallSettings wallSettings;
+	private int flipDuration;
 	private ViewGroup viewFrame;
 	private int imageWidth, imageHeight;
+	// on dense walls the player spans a block of cells
+	private int playerWidth, playerHeight;
+	private int numberOfRows;
 	private boolean firstTime = true;
 	private String currentVideoId;
 	private int interImagePaddingPx;
 	private String currentPlaylist = PLAYLIST_ID;
 	private String nextPlaylist = null;
+	private final ArrayDeque<String> wallVideoIds = new ArrayDeque<String>();
 
 	@Override
 	public void onCreate(Bundle savedInstanceState) {
 		super.onCreate(savedInstanceState);
-		state = State.UNINITIALIZED;
+		stateMachine.setListener(new StateListener());
 
 		viewFrame = new FrameLayout(this);
 
-		flipDelayHandler = new FlipDelayHandler();
+		flipScheduler = new FlipScheduler(FrameSources.create(), new FlipListener(), new Random());
+		flipScheduler.setWaveSize(getResources().getInteger(R.integer.flip_wave_size));
+		float refreshRate = getWindowManager().getDefaultDisplay().getRefreshRate();
+		frameRateGovernor = new FrameRateGovernor(FrameSources.create(), new GovernorListener(), refreshRate, getResources().getInteger(
+				R.integer.frame_drop_budget_percent) / 100f);
+		if (getResources().getBoolean(R.bool.frame_stats)) {
+			frameStats = new FrameStats(refreshRate);
+		}
+		updateFlipCadence();
+		animationPool = new ImageAnimationViewPool(new AnimationViewFactory(), getResources().getInteger(R.integer.max_concurrent_flips));
+		createMetrics();
 
 		setContentView(viewFrame);
 
@@ -182,59 +272,17 @@ public class VideoWallActivity extends Activity implements ImageAnimationListene
 		Analytics.stopAnalytics(this);
 	}
 
-	@Override
-	public void onInitializationSuccess(YouTubeThumbnailView thumbnailView, YouTubeThumbnailLoader thumbnailLoader) {
-		Log.d(LOG_TAG, "onInitializationSuccess");
-		this.thumbnailLoader = thumbnailLoader;
-		thumbnailLoader.setOnThumbnailLoadedListener(new ThumbnailListener());
-		maybeStartDemo();
-	}
-
-	@Override
-	public void onInitializationFailure(YouTubeThumbnailView thumbnailView, YouTubeInitializationResult errorReason) {
-		Log.w(LOG_TAG, "onInitializationFailure: " + errorReason);
-		if (errorReason.isUserRecoverableError()) {
-			if (errorDialog == null || !errorDialog.isShowing()) {
-				errorDialog = errorReason.getErrorDialog(this, RECOVERY_DIALOG_REQUEST);
-				errorDialog.show();
-			}
-		} else {
-			String errorMessage = String.format(getString(R.string.error_thumbnail_view), errorReason.toString());
-			Toast.makeText(this, errorMessage, Toast.LENGTH_LONG).show();
-		}
-	}
-
-	@Override
-	public void onInitializationSuccess(YouTubePlayer.Provider provider, YouTubePlayer player, boolean wasResumed) {
-		Log.d(LOG_TAG, "onInitializationSuccess");
-		this.player = player;
-		player.setPlayerStyle(PlayerStyle.CHROMELESS);
-		player.setPlayerStateChangeListener(new VideoListener());
-		player.setFullscreenControlFlags(YouTubePlayer.FULLSCREEN_FLAG_CUSTOM_LAYOUT);
-		maybeStartDemo();
-	}
-
-	@Override
-	public void onInitializationFailure(YouTubePlayer.Provider provider, YouTubeInitializationResult errorReason) {
-		Log.w(LOG_TAG, "onInitializationFailure: " + errorReason);
-		if (errorReason.isUserRecoverableError()) {
-			if (errorDialog == null || !errorDialog.isShowing()) {
-				errorDialog = errorReason.getErrorDialog(this, RECOVERY_DIALOG_REQUEST);
-				errorDialog.show();
-			}
-		} else {
-			String errorMessage = String.format(getString(R.string.error_player), errorReason.toString());
-			Toast.makeText(this, errorMessage, Toast.LENGTH_LONG).show();
-		}
-	}
-
 	private void maybeStartDemo() {
 		Log.d(LOG_TAG, "maybeStartDemo");
-		if (activityResumed && player != null && thumbnailLoader != null && state.equals(State.UNINITIALIZED)) {
-			// loading the first thumbnail will kick off demo
+		if (activityResumed && activeSlot != null && activeSlot.isReady() && thumbnailPool != null && thumbnailPool.isInitialized() && stateMachine.is(WallState.UNINITIALIZED)) {
+			// loading the first thumbnail will kick off demo; cache hits are
+			// delivered synchronously, so the wall must be loading first
+			fillStartTime = SystemClock.uptimeMillis();
+			stateMachine.fire(WallEvent.START);
 			Log.d(LOG_TAG, "setPlaylist");
-			thumbnailLoader.setPlaylist(currentPlaylist);
-			state = State.LOADING_THUMBNAILS;
+			thumbnailPool.setPlaylist(currentPlaylist);
+			// repaint the wall from cached thumbnails of the last session
+			thumbnailPool.preload(loadWallVideos());
 		}
 	}
 
@@ -246,8 +294,10 @@ public class VideoWallActivity extends Activity implements ImageAnimationListene
 				errorDialog.dismiss();
 			}
 			errorDialog = null;
-			playerFragment.initialize(DEVELOPER_KEY, this);
-			thumbnailView.initialize(DEVELOPER_KEY, this);
+			if (activeSlot != null && !activeSlot.isReady()) {
+				activeSlot.initialize(new PlayerInitializationListener(activeSlot));
+			}
+			createThumbnailPool();
 		}
 	}
 
@@ -259,117 +309,117 @@ public class VideoWallActivity extends Activity implements ImageAnimationListene
 		createUserInterface();
 	}
 
+	/**
+	 * Bring the wall in line with the current settings. Only what the changed
+	 * settings invalidate is rebuilt: a plain resume keeps the wall, its
+	 * thumbnails and the initialized players and picks up where it left off.
+	 */
 	public void createUserInterface() {
 		activityResumed = false;
-		if (highlightImageView != null) {
-			viewFrame.removeView(highlightImageView);
-		}
-		if (player != null && player.isPlaying()) {
-			player.pause();
-		}
-		if (flipDelayHandler != null) {
-			flipDelayHandler.removeCallbacksAndMessages(null);
-		}
-		currentVideoId = null;
+		saveWallVideos();
 
+		if (nextPlaylist != null) {
+			currentPlaylist = nextPlaylist;
+			nextPlaylist = null;
+		}
 		preferences = PreferenceManager.getDefaultSharedPreferences(getBaseContext());
-		int padding = INTER_IMAGE_PADDING_DP;
-		String paddingValue = preferences.getString(PreferencesActivity.GENERAL_BORDER, String.valueOf(INTER_IMAGE_PADDING_DP));
-		Log.d(LOG_TAG, "padding=" + paddingValue);
-		if (paddingValue.equals(PreferencesActivity.BORDER_NONE)) {
-			padding = 0;
-		} else if (paddingValue.equals(PreferencesActivity.BORDER_THIN)) {
-			padding = INTER_IMAGE_PADDING_DP;
-		} else if (paddingValue.equals(PreferencesActivity.BORDER_THICK)) {
-			padding = INTER_IMAGE_PADDING_DP * 2;
-		}
-
-		String rowsValue = preferences.getString(PreferencesActivity.GENERAL_ROWS, String.valueOf(MAX_NUMBER_OF_ROWS_WANTED));
-		Log.d(LOG_TAG, "rows=" + rowsValue);
-		int rows = MAX_NUMBER_OF_ROWS_WANTED;
-		try {
-			rows = Integer.parseInt(rowsValue);
-		} catch (NumberFormatException e) {
+		WallSettings newSettings = WallSettings.read(preferences, currentPlaylist, MAX_NUMBER_OF_ROWS_WANTED, INTER_IMAGE_PADDING_DP);
+		Log.d(LOG_TAG, "settings: " + newSettings);
+		boolean geometryChanged = newSettings.geometryDiffers(wallSettings);
+		boolean playlistChanged = newSettings.playlistDiffers(wallSettings);
+		boolean effectChanged = newSettings.effectDiffers(wallSettings);
+		wallSettings = newSettings;
+
+		if (geometryChanged) {
+			DisplayMetrics displayMetrics = getResources().getDisplayMetrics();
+			numberOfRows = Math.max(1, Math.min(getResources().getInteger(R.integer.max_wall_rows), wallSettings.getRows()));
+			interImagePaddingPx = (int) displayMetrics.density * wallSettings.getPadding();
+			imageHeight = (displayMetrics.heightPixels / numberOfRows) - interImagePaddingPx;
+			imageWidth = (int) (imageHeight * THUMBNAIL_ASPECT_RATIO);
+			// the player cannot be smaller than its minimum height, so it
+			// covers as many cells as it takes
+			int minimumPlayerHeight = (int) Math.ceil(PLAYER_VIEW_MINIMUM_HEIGHT_DP * displayMetrics.density);
+			int span = 1;
+			while (span * imageHeight + (span - 1) * interImagePaddingPx < minimumPlayerHeight && span < numberOfRows) {
+				span++;
+			}
+			playerWidth = span * imageWidth + (span - 1) * interImagePaddingPx;
+			playerHeight = span * imageHeight + (span - 1) * interImagePaddingPx;
+			Log.d(LOG_TAG, "rebuild for " + numberOfRows + " rows of " + imageWidth + "x" + imageHeight + ", player " + playerWidth + "x"
+					+ playerHeight);
+
+			if (highlightImageView == null) {
+				// create view to highlight the currently playing video
+				highlightImageView = new ImageView(this);
+				highlightImageView.setVisibility(View.INVISIBLE);
+				highlightImageView.setBackgroundColor(getResources().getColor(R.color.highlight));
+				viewFrame.addView(highlightImageView);
+			}
+			highlightImageView.setLayoutParams(new LayoutParams(playerWidth + interImagePaddingPx, playerHeight + interImagePaddingPx));
 		}
 
-		DisplayMetrics displayMetrics = getResources().getDisplayMetrics();
-		int maxAllowedNumberOfRows = (int) Math.floor((displayMetrics.heightPixels / displayMetrics.density) / PLAYER_VIEW_MINIMUM_HEIGHT_DP);
-		int numberOfRows = Math.min(maxAllowedNumberOfRows, rows);
-		interImagePaddingPx = (int) displayMetrics.density * padding;
-		imageHeight = (displayMetrics.heightPixels / numberOfRows) - interImagePaddingPx;
-		imageWidth = (int) (imageHeight * THUMBNAIL_ASPECT_RATIO);
-
-		// create view to highlight the currently playing video
-		highlightImageView = new ImageView(this);
-		highlightImageView.setVisibility(View.INVISIBLE);
-		highlightImageView.setLayoutParams(new LayoutParams(imageWidth + interImagePaddingPx, imageHeight + interImagePaddingPx));
-		highlightImageView.setBackgroundColor(getResources().getColor(R.color.highlight));
-		viewFrame.addView(highlightImageView);
-
-		if (imageWallView != null) {
-			viewFrame.removeView(imageWallView);
+		boolean reset = geometryChanged || playlistChanged || thumbnailPool == null;
+		if (reset) {
+			// the thumbnails on the wall no longer match
+			resetWall();
+		}
+		if (geometryChanged || effectChanged) {
+			// the views are created again with the new size and effect
+			Log.d(LOG_TAG, "effect=" + wallSettings.getEffect());
+			completeFlips();
+			animationPool.clear();
 		}
-		// create the wall of playlist thumbnail images
-		imageWallView = new ImageWallView(this, imageWidth, imageHeight, interImagePaddingPx);
-		viewFrame.addView(imageWallView, MATCH_PARENT, MATCH_PARENT);
 
-		if (thumbnailLoader != null) {
-			thumbnailLoader.setOnThumbnailLoadedListener(null);
-			thumbnailLoader.release();
-			thumbnailLoader = null;
+		if (activeSlot == null) {
+			activeSlot = createPlayerSlot(R.id.player_view);
 		}
-		if (nextPlaylist != null) {
-			currentPlaylist = nextPlaylist;
+		// a second player cues the next video while the current one plays
+		if (standbySlot == null && getResources().getBoolean(R.bool.double_buffered_player) && Sources.supportsMultiplePlayers(this)) {
+			standbySlot = createPlayerSlot(R.id.standby_player_view);
 		}
-		thumbnailView = new YouTubeThumbnailView(this);
-		thumbnailView.initialize(DEVELOPER_KEY, this);
-
-		createAnimationView(firstTime ? INITIAL_FLIP_DURATION_MILLIS : FLIP_DURATION_MILLIS);
-		firstTime = false;
-
-		if (playerView != null) {
-			viewFrame.removeView(playerView);
-			getFragmentManager().beginTransaction().remove(playerFragment).commit();
+		if (geometryChanged) {
+			activeSlot.getView().setLayoutParams(new LayoutParams(playerWidth, playerHeight));
+			if (standbySlot != null) {
+				standbySlot.getView().setLayoutParams(new LayoutParams(playerWidth, playerHeight));
+			}
 		}
-		playerView = new FrameLayout(this);
-		playerView.setId(R.id.player_view);
-		playerView.setVisibility(View.INVISIBLE);
-		viewFrame.addView(playerView, imageWidth, imageHeight);
-
-		playerFragment = YouTubePlayerFragment.newInstance();
-		playerFragment.initialize(DEVELOPER_KEY, this);
-		getFragmentManager().beginTransaction().add(R.id.player_view, playerFragment).commit();
 
-		if (overlayView != null) {
-			viewFrame.removeView(overlayView);
-		}
-		LayoutInflater inflater = getLayoutInflater();
-		overlayView = inflater.inflate(R.layout.overlay, null);
-		viewFrame.addView(overlayView, MATCH_PARENT, MATCH_PARENT);
+		if (overlayView == null) {
+			LayoutInflater inflater = getLayoutInflater();
+			overlayView = inflater.inflate(R.layout.overlay, null);
+			viewFrame.addView(overlayView, MATCH_PARENT, MATCH_PARENT);
+			if (frameStats != null) {
+				// stays on top of the overlay and the players
+				frameStatsView = new TextView(this);
+				frameStatsView.setTextColor(getResources().getColor(R.color.white));
+				frameStatsView.setBackgroundColor(getResources().getColor(R.color.frame_stats_background));
+				viewFrame.addView(frameStatsView, WRAP_CONTENT, WRAP_CONTENT);
+			}
 
-		menuImageView = (ImageView) findViewById(R.id.menu);
-		coverImageView = (ImageView) findViewById(R.id.cover);
-		youtubeImageView = (ImageView) findViewById(R.id.youtube);
+			menuImageView = (ImageView) findViewById(R.id.menu);
+			coverImageView = (ImageView) findViewById(R.id.cover);
+			youtubeImageView = (ImageView) findViewById(R.id.youtube);
 
-		// display menu hint
-		fadeOut.setAnimationListener(new AnimationListener() {
+			// display menu hint
+			fadeOut.setAnimationListener(new AnimationListener() {
 
-			@Override
-			public void onAnimationEnd(Animation animation) {
-				menuImageView.setVisibility(View.GONE);
-				showCover(false);
-			}
+				@Override
+				public void onAnimationEnd(Animation animation) {
+					menuImageView.setVisibility(View.GONE);
+					showCover(false);
+				}
 
-			@Override
-			public void onAnimationRepeat(Animation animation) {
-			}
+				@Override
+				public void onAnimationRepeat(Animation animation) {
+				}
 
-			@Override
-			public void onAnimationStart(Animation animation) {
-			}
+				@Override
+				public void onAnimationStart(Animation animation) {
+				}
 
-		});
-		menuImageView.startAnimation(fadeOut);
+			});
+			menuImageView.startAnimation(fadeOut);
+		}
 
 		// For first time install show the introduction dialog with some user
 		// instructions
@@ -391,229 +441,883 @@ public class VideoWallActivity extends Activity implements ImageAnimationListene
 		}
 
 		activityResumed = true;
-		state = State.UNINITIALIZED;
+		// handler messages are not display frames, so dropped frames can only
+		// be measured with the Choreographer
+		if (getResources().getBoolean(R.bool.frame_rate_governor) && FrameSources.hasDisplayFrames()) {
+			frameRateGovernor.start();
+		}
+		metricsHandler.removeCallbacks(metricsRunnable);
+		metricsHandler.postDelayed(metricsRunnable, getResources().getInteger(R.integer.metrics_snapshot_seconds) * DateUtils.SECOND_IN_MILLIS);
+		resumeWall();
 
 		Analytics.logEvent(Analytics.VIDEO_WALL);
 	}
 
-	private void createAnimationView(int duration) {
-		String effect = preferences.getString(PreferencesActivity.GENERAL_EFFECT, PreferencesActivity.EFFECT_FLIP);
-		Log.d(LOG_TAG, "effect=" + effect);
-		if (imageAnimationView != null) {
-			viewFrame.removeView(imageAnimationView);
+	/**
+	 * Start the wall over with a new grid of empty cells and a new thumbnail
+	 * pool. The players are kept but their videos are dropped.
+	 */
+	private void resetWall() {
+		pausePlayers();
+		flipScheduler.stop();
+		stateMachine.fire(WallEvent.RESET);
+		currentVideoId = null;
+		videoEndedTime = 0;
+		fillStartTime = 0;
+		// the flips in progress would otherwise complete on the new wall
+		animationPool.clear();
+		cuedVideoView = null;
+		flipOutView = null;
+		cuedVideoFlipped = false;
+		highlightImageView.setVisibility(View.INVISIBLE);
+		resetPlayerSlot(activeSlot);
+		resetPlayerSlot(standbySlot);
+		if (overlayView != null) {
+			overlayView.setVisibility(View.VISIBLE);
+			youtubeImageView.setVisibility(View.VISIBLE);
+		}
+
+		ImageWallView previous = imageWallView;
+		// create the wall of playlist thumbnail images
+		// a dense wall has too many cells for a view each
+		boolean canvasMode = getResources().getBoolean(R.bool.canvas_wall_renderer)
+				|| numberOfRows >= getResources().getInteger(R.integer.canvas_wall_min_rows);
+		imageWallView = new ImageWallView(this, imageWidth, imageHeight, interImagePaddingPx, canvasMode);
+		imageWallView.setPlayerSize(playerWidth, playerHeight);
+		imageWallView.setTileSelectionPolicy(getString(R.string.tile_selection_policy));
+		replaceView(previous, imageWallView, MATCH_PARENT, MATCH_PARENT);
+		if (previous != null) {
+			previous.releaseImages();
+		}
+
+		flipDuration = firstTime ? INITIAL_FLIP_DURATION_MILLIS : FLIP_DURATION_MILLIS;
+		firstTime = false;
+		animationPool.setDuration(flipDuration);
+
+		createThumbnailPool();
+	}
+
+	private void resetPlayerSlot(PlayerSlot slot) {
+		if (slot != null) {
+			slot.clear();
+			slot.getView().setVisibility(View.INVISIBLE);
+		}
+	}
+
+	/**
+	 * Pick up the wall where it was left when the activity was paused.
+	 */
+	private void resumeWall() {
+		if (stateMachine.is(WallState.UNINITIALIZED)) {
+			maybeStartDemo();
+			return;
+		}
+		if (!stateMachine.is(WallState.LOADING_THUMBNAILS)) {
+			flipScheduler.start();
+		}
+		if (stateMachine.is(WallState.VIDEO_PLAYING)) {
+			showHighlight();
+			VideoPlayer player = activeSlot.getPlayer();
+			if (player != null && !player.isPlaying()) {
+				Log.d(LOG_TAG, "player.play: " + currentVideoId);
+				player.play();
+			}
+		} else if (stateMachine.is(WallState.VIDEO_FLIPPED_OUT)) {
+			maybeCueNextVideo();
+		} else {
+			// a flip may have completed while the activity was paused
+			advanceWall();
+		}
+	}
+
+	/**
+	 * Put a view in the place of another one, keeping the stacking order of
+	 * the frame.
+	 */
+	private void replaceView(View previous, View view, int width, int height) {
+		int index = -1;
+		if (previous != null) {
+			index = viewFrame.indexOfChild(previous);
+			viewFrame.removeView(previous);
 		}
-		if (effect.equals(PreferencesActivity.EFFECT_FLIP)) {
-			imageAnimationView = new FlipImageAnimationView(this, this, imageWidth, imageHeight);
-		} else if (effect.equals(PreferencesActivity.EFFECT_FADE)) {
-			imageAnimationView = new FadingImageAnimationView(this, this, imageWidth, imageHeight);
-		} else if (effect.equals(PreferencesActivity.EFFECT_RIGHT_LEFT)) {
-			imageAnimationView = new RightLeftImageAnimationView(this, this, imageWidth, imageHeight);
-		} else if (effect.equals(PreferencesActivity.EFFECT_TOP_DOWN)) {
-			imageAnimationView = new TopDownImageAnimationView(this, this, imageWidth, imageHeight);
+		viewFrame.addView(view, index, new LayoutParams(width, height));
+	}
+
+	private void createThumbnailPool() {
+		if (thumbnailPool != null) {
+			thumbnailPool.release();
+		}
+		int loaderCount = getResources().getInteger(R.integer.thumbnail_loader_count);
+		int capacity = getResources().getInteger(R.integer.thumbnail_buffer_size);
+		long indexMaxAge = getResources().getInteger(R.integer.playlist_index_refresh_hours) * DateUtils.HOUR_IN_MILLIS;
+		VideoWallApplication application = (VideoWallApplication) getApplicationContext();
+		// decode every thumbnail once at the pixel size of a wall cell
+		ThumbnailDecoder decoder = new ThumbnailDecoder(getResources(), application.getBitmapPool(), imageWidth, imageHeight, getResources().getBoolean(
+				R.bool.thumbnail_rgb_565));
+		ThumbnailCache cache = application.getThumbnailCache();
+		cache.setDecoder(decoder);
+		thumbnailPool = new ThumbnailFetchPool(this, Sources.createThumbnailSource(this, DEVELOPER_KEY), new ThumbnailListener(), cache, decoder,
+				loaderCount, capacity, indexMaxAge);
+		thumbnailPool.setNegativeCache(application.getNegativeCache());
+		thumbnailPool.setBackoff(getResources().getInteger(R.integer.thumbnail_backoff_base_ms),
+				getResources().getInteger(R.integer.thumbnail_backoff_max_ms));
+		thumbnailPool.setMetrics(metrics);
+		thumbnailPool.initialize();
+	}
+
+	private PlayerSlot createPlayerSlot(int id) {
+		FrameLayout view = new FrameLayout(this);
+		view.setId(id);
+		view.setVisibility(View.INVISIBLE);
+		// players stay below the overlay
+		int index = overlayView != null ? viewFrame.indexOfChild(overlayView) : -1;
+		viewFrame.addView(view, index, new LayoutParams(playerWidth, playerHeight));
+		PlayerSlot slot = new PlayerSlot(view, Sources.createVideoSource(this, DEVELOPER_KEY));
+		slot.attach(this);
+		slot.initialize(new PlayerInitializationListener(slot));
+		return slot;
+	}
+
+	private void removePlayerSlot(PlayerSlot slot) {
+		if (slot != null) {
+			slot.detach();
+			viewFrame.removeView(slot.getView());
+		}
+	}
+
+	private void swapPlayerSlots() {
+		PlayerSlot slot = activeSlot;
+		activeSlot = standbySlot;
+		standbySlot = slot;
+	}
+
+	private void pausePlayers() {
+		if (activeSlot != null) {
+			activeSlot.pause();
+		}
+		if (standbySlot != null) {
+			standbySlot.pause();
+		}
+	}
+
+	/**
+	 * Look up the metrics recorded by the activity and register the gauges
+	 * of the wall.
+	 */
+	private void createMetrics() {
+		metrics = ((VideoWallApplication) getApplicationContext()).getMetrics();
+		cueLatency = metrics.histogram(METRIC_CUE_LATENCY, LATENCY_BOUNDS);
+		flipLatency = metrics.histogram(METRIC_FLIP_LATENCY, LATENCY_BOUNDS);
+		gapLatency = metrics.histogram(METRIC_GAP, LATENCY_BOUNDS);
+		visibleFillLatency = metrics.histogram(METRIC_VISIBLE_FILL, LATENCY_BOUNDS);
+		emptyTicks = metrics.counter(METRIC_EMPTY_TICKS);
+		VideoPlayer.ErrorReason[] reasons = VideoPlayer.ErrorReason.values();
+		playerErrors = new MetricsRegistry.Counter[reasons.length];
+		for (int i = 0; i < reasons.length; i++) {
+			playerErrors[i] = metrics.counter(METRIC_PLAYER_ERRORS + reasons[i].name().toLowerCase(Locale.US));
+		}
+		VideoWallApplication application = (VideoWallApplication) getApplicationContext();
+		final ThumbnailCache cache = application.getThumbnailCache();
+		final NegativeCache negativeCache = application.getNegativeCache();
+		gauges.put(METRIC_MEMORY_HIT_PERCENT, new MetricsRegistry.Gauge() {
+
+			@Override
+			public long getValue() {
+				return percent(cache.getMemoryHitCount(), cache.getMemoryHitCount() + cache.getMemoryMissCount());
+			}
+
+		});
+		gauges.put(METRIC_DISK_HIT_PERCENT, new MetricsRegistry.Gauge() {
+
+			@Override
+			public long getValue() {
+				return percent(cache.getDiskHitCount(), cache.getDiskHitCount() + cache.getDiskMissCount());
+			}
+
+		});
+		gauges.put(METRIC_BLACKLIST_SIZE, new MetricsRegistry.Gauge() {
+
+			@Override
+			public long getValue() {
+				return negativeCache.getBlacklistSize();
+			}
+
+		});
+		gauges.put(METRIC_ERROR_PERCENT, new MetricsRegistry.Gauge() {
+
+			@Override
+			public long getValue() {
+				// the pool is replaced when the wall is reset
+				ThumbnailFetchPool pool = thumbnailPool;
+				return pool != null ? percent(pool.getErrorCount(), pool.getRequestCount()) : 0;
+			}
+
+		});
+		gauges.put(METRIC_GOVERNOR_LEVEL, new MetricsRegistry.Gauge() {
+
+			@Override
+			public long getValue() {
+				return frameRateGovernor.getLevel();
+			}
+
+		});
+		for (Map.Entry<String, MetricsRegistry.Gauge> entry : gauges.entrySet()) {
+			metrics.gauge(entry.getKey(), entry.getValue());
+		}
+	}
+
+	private static long percent(long part, long whole) {
+		return whole > 0 ? part * 100 / whole : 0;
+	}
+
+	/**
+	 * Set the time between periodic flips for the level of the frame rate
+	 * governor.
+	 */
+	private void updateFlipCadence() {
+		int factor = frameRateGovernor.getLevel() >= FrameRateGovernor.LEVEL_SLOW ? GOVERNED_FLIP_PERIOD_FACTOR : 1;
+		flipScheduler.setCadence(getResources().getInteger(R.integer.flip_period_ms) * factor, getResources().getInteger(R.integer.flip_jitter_ms)
+				* factor);
+	}
+
+	/**
+	 * @return true if the governor skips the periodic flips while a video
+	 *         plays.
+	 */
+	private boolean isSkippingFlips() {
+		return frameRateGovernor.getLevel() >= FrameRateGovernor.LEVEL_SKIP && stateMachine.is(WallState.VIDEO_PLAYING);
+	}
+
+	/**
+	 * Complete the flips in progress at once, e.g. before their views are
+	 * replaced.
+	 */
+	private void completeFlips() {
+		while (animationPool.getActiveCount() > 0) {
+			ImageAnimationView view = animationPool.getActive(0);
+			animationPool.release(view);
+			completeFlip(view);
 		}
-		imageAnimationView.setDuration(duration);
-		viewFrame.addView(imageAnimationView, imageWidth, imageHeight);
 	}
 
 	@Override
 	protected void onPause() {
-		if (player != null) {
-			Log.d(LOG_TAG, "player.pause: " + currentVideoId);
-			player.pause();
-		}
-		flipDelayHandler.removeCallbacksAndMessages(null);
+		Log.d(LOG_TAG, "player.pause: " + currentVideoId);
+		pausePlayers();
+		flipScheduler.stop();
+		frameRateGovernor.stop();
+		metricsHandler.removeCallbacks(metricsRunnable);
 		activityResumed = false;
 		highlightImageView.setVisibility(View.INVISIBLE);
 		highlightImageView.setX(-imageWidth);
 		highlightImageView.setY(-imageHeight);
-		
+		saveWallVideos();
+		((VideoWallApplication) getApplicationContext()).getThumbnailCache().logStatistics();
+		if (thumbnailPool != null) {
+			thumbnailPool.logStatistics();
+		}
+		imageWallView.logStatistics();
+		Log.d(LOG_TAG, stateMachine.dump());
+		Log.d(LOG_TAG, "flips: " + flipScheduler);
+		Log.d(LOG_TAG, "flip governor: " + frameRateGovernor);
+		Log.d(LOG_TAG, "metrics: " + metrics.snapshot());
+		if (frameStats != null) {
+			Log.d(LOG_TAG, frameStats.dump());
+			try {
+				frameStats.export(new File(getFilesDir(), FRAME_STATS_FILE));
+			} catch (IOException e) {
+				Log.e(LOG_TAG, "frame stats export", e);
+			}
+		}
+		((VideoWallApplication) getApplicationContext()).getNegativeCache().save();
+
 		super.onPause();
 	}
 
 	@Override
 	protected void onDestroy() {
-		if (thumbnailLoader != null) {
-			thumbnailLoader.release();
+		if (activeSlot != null) {
+			activeSlot.clear();
+		}
+		if (standbySlot != null) {
+			standbySlot.clear();
+		}
+		if (thumbnailPool != null) {
+			thumbnailPool.release();
+		}
+		// the gauges refer to this activity
+		for (Map.Entry<String, MetricsRegistry.Gauge> entry : gauges.entrySet()) {
+			metrics.removeGauge(entry.getKey(), entry.getValue());
 		}
 		super.onDestroy();
 	}
 
-	private void flipNext() {
-		if (!nextThumbnailLoaded || state.equals(State.VIDEO_LOADING)) {
-			return;
+	/**
+	 * Flip the next thumbnail onto the wall. While a video is being loaded
+	 * the wall keeps flipping, since the thumbnail of that video has been
+	 * taken out of the buffer.
+	 *
+	 * @return false if no thumbnail was ready to be flipped in.
+	 */
+	private boolean flipNext() {
+		if (animationPool.isFull() || thumbnailPool == null) {
+			return false;
+		}
+		boolean flippingCuedVideo = stateMachine.is(WallState.VIDEO_CUED) && activeSlot.hasThumbnail();
+		if (!flippingCuedVideo && thumbnailPool.peek() == null) {
+			return false;
 		}
 
-		if (state.equals(State.VIDEO_ENDED)) {
+		int flippingCol, flippingRow;
+		boolean flippingOut = stateMachine.is(WallState.VIDEO_ENDED);
+		if (flippingOut) {
 			flippingCol = videoCol;
 			flippingRow = videoRow;
-			state = State.VIDEO_BEING_FLIPPED_OUT;
+			ImageAnimationView running = findFlip(flippingCol, flippingRow);
+			if (running != null) {
+				// the cell was picked for a refresh once the video ended
+				stateMachine.fire(WallEvent.FLIP_OUT);
+				flipOutView = running;
+				return true;
+			}
 		} else {
 			// When video is cued only pick locations that are totally visible
-			// otherwise player will fail.
-			Pair<Integer, Integer> nextTarget = imageWallView.getNextLoadTarget(state == State.VIDEO_CUED);
-			flippingCol = nextTarget.first;
-			flippingRow = nextTarget.second;
+			// otherwise player will fail. Cells being flipped are hidden, so
+			// they are never picked twice.
+			int cell = imageWallView.getNextLoadTarget(flippingCuedVideo);
+			if (cell < 0) {
+				return false;
+			}
+			flippingCol = imageWallView.getColumn(cell);
+			flippingRow = imageWallView.getRow(cell);
 		}
 
-		imageAnimationView.setX(imageWallView.getXPosition(flippingCol, flippingRow));
-		imageAnimationView.setY(imageWallView.getYPosition(flippingCol, flippingRow));
-		imageAnimationView.setInDrawable(thumbnailView.getDrawable());
-		imageAnimationView.setOutDrawable(imageWallView.getImageDrawable(flippingCol, flippingRow));
-		imageWallView.setImageDrawable(flippingCol, flippingRow, thumbnailView.getDrawable());
+		Thumbnail thumbnail = flippingCuedVideo ? activeSlot.takeThumbnail() : thumbnailPool.poll();
+		rememberWallVideo(thumbnail.getVideoId());
+		ImageAnimationView view = animationPool.acquire();
+		if (flippingOut) {
+			stateMachine.fire(WallEvent.FLIP_OUT);
+			flipOutView = view;
+		} else if (flippingCuedVideo) {
+			cuedVideoView = view;
+			cuedVideoFlipped = false;
+		}
+
+		view.setCell(flippingCol, flippingRow);
+		view.setX(imageWallView.getXPosition(flippingCol, flippingRow));
+		view.setY(imageWallView.getYPosition(flippingCol, flippingRow));
+		view.setInDrawable(thumbnail.getDrawable());
+		view.setOutDrawable(imageWallView.getImageDrawable(flippingCol, flippingRow));
+		imageWallView.setImageDrawable(flippingCol, flippingRow, thumbnail.getDrawable());
+		// the wall and the animation hold their own references now
+		PooledBitmapDrawable.release(thumbnail.getDrawable());
 		imageWallView.hideImage(flippingCol, flippingRow);
-		imageAnimationView.setVisibility(View.VISIBLE);
-		imageAnimationView.start();
+		view.setVisibility(View.VISIBLE);
+		view.start();
+		return true;
 	}
 
 	@Override
 	public void onAnimationCompleted(ImageAnimationView view) {
-		imageWallView.showImage(flippingCol, flippingRow);
-		imageAnimationView.setVisibility(View.INVISIBLE);
+		if (!animationPool.release(view)) {
+			// the flip was abandoned when its view was replaced
+			return;
+		}
+		completeFlip(view);
+		flipLatency.record(SystemClock.uptimeMillis() - view.getStartTime());
+		if (frameStatsView != null) {
+			frameStatsView.setText(frameStats.dump());
+		}
 
+		if (fillStartTime > 0 && imageWallView.visibleImagesLoaded()) {
+			visibleFillLatency.record(SystemClock.uptimeMillis() - fillStartTime);
+			fillStartTime = 0;
+		}
 		if (activityResumed) {
-			loadNextThumbnail();
-
-			if (state.equals(State.VIDEO_BEING_FLIPPED_OUT)) {
-				state = State.VIDEO_FLIPPED_OUT;
-			} else if (state.equals(State.VIDEO_CUED)) {
-				overlayView.setVisibility(View.GONE);
-				youtubeImageView.setVisibility(View.GONE);
-				videoCol = flippingCol;
-				videoRow = flippingRow;
-				playerView.setX(imageWallView.getXPosition(flippingCol, flippingRow));
-				playerView.setY(imageWallView.getYPosition(flippingCol, flippingRow));
-				ImageView currentImageView = imageWallView.hideImage(flippingCol, flippingRow);
-				if (preferences.getBoolean(PreferencesActivity.GENERAL_HIGHLIGHT, true)) {
-					highlightImageView.setVisibility(View.VISIBLE);
-					highlightImageView.setX(currentImageView.getX() - interImagePaddingPx / 2);
-					highlightImageView.setY(currentImageView.getY() - interImagePaddingPx / 2);
-					highlightImageView.startAnimation(fadeInSlow);
+			advanceWall();
+		}
+	}
+
+	/**
+	 * @return the view of the flip running at a cell, or null.
+	 */
+	private ImageAnimationView findFlip(int col, int row) {
+		for (int i = 0; i < animationPool.getActiveCount(); i++) {
+			ImageAnimationView view = animationPool.getActive(i);
+			if (view.getColumn() == col && view.getRow() == row) {
+				return view;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Show the cell of a completed flip again and note which video it
+	 * flipped.
+	 */
+	private void completeFlip(ImageAnimationView view) {
+		imageWallView.showImage(view.getColumn(), view.getRow());
+		view.setVisibility(View.INVISIBLE);
+		if (view == flipOutView) {
+			flipOutView = null;
+		} else if (view == cuedVideoView) {
+			cuedVideoView = null;
+			if (stateMachine.is(WallState.VIDEO_CUED)) {
+				videoCol = view.getColumn();
+				videoRow = view.getRow();
+				cuedVideoFlipped = true;
+			}
+		}
+	}
+
+	/**
+	 * Move the wall on once a flip has completed.
+	 */
+	private void advanceWall() {
+		if (stateMachine.is(WallState.VIDEO_BEING_FLIPPED_OUT)) {
+			if (flipOutView == null) {
+				stateMachine.fire(WallEvent.FLIPPED_OUT);
+				maybeCueNextVideo();
+			}
+		} else if (stateMachine.is(WallState.VIDEO_CUED) && cuedVideoFlipped) {
+			cuedVideoFlipped = false;
+			overlayView.setVisibility(View.GONE);
+			youtubeImageView.setVisibility(View.GONE);
+			ViewGroup playerView = activeSlot.getView();
+			playerView.setX(imageWallView.getXPosition(videoCol, videoRow));
+			playerView.setY(imageWallView.getYPosition(videoCol, videoRow));
+			// the cells under the player are not drawn or flipped
+			imageWallView.coverPlayer(videoCol, videoRow);
+			showHighlight();
+			playerView.setVisibility(View.VISIBLE);
+			Log.d(LOG_TAG, "player.play: " + currentVideoId);
+			activeSlot.getPlayer().play();
+			stateMachine.fire(WallEvent.PLAY);
+			maybeCueStandbyVideo();
+		} else if (stateMachine.is(WallState.LOADING_THUMBNAILS) && imageWallView.allImagesLoaded()) {
+			// trigger flip in of an initial video
+			stateMachine.fire(WallEvent.WALL_FILLED);
+			flipDuration = FLIP_DURATION_MILLIS;
+			animationPool.setDuration(flipDuration);
+			flipScheduler.start();
+			maybeCueNextVideo();
+		} else if (stateMachine.is(WallState.LOADING_THUMBNAILS)) {
+			// keep filling the wall as fast as thumbnails arrive
+			flipNext();
+		} else if (stateMachine.is(WallState.VIDEO_CUED) && cuedVideoView == null) {
+			// the cued video was handed over while the pool was full
+			flipNext();
+		} else if (stateMachine.is(WallState.VIDEO_ENDED)) {
+			// the ended video could not be flipped out while the pool was
+			// full
+			flipNext();
+		}
+	}
+
+	/**
+	 * Highlight the cell of the playing video if the user wants it.
+	 */
+	private void showHighlight() {
+		if (wallSettings.isHighlight()) {
+			highlightImageView.setVisibility(View.VISIBLE);
+			highlightImageView.setX(imageWallView.getXPosition(videoCol, videoRow) - interImagePaddingPx / 2);
+			highlightImageView.setY(imageWallView.getYPosition(videoCol, videoRow) - interImagePaddingPx / 2);
+			highlightImageView.startAnimation(fadeInSlow);
+		}
+	}
+
+	/**
+	 * Load the player with the video of the next thumbnail, reserving the
+	 * thumbnail until the video is flipped in. If the standby player has
+	 * already loaded a video it takes over instead.
+	 */
+	private void maybeCueNextVideo() {
+		if (!stateMachine.is(WallState.VIDEO_FLIPPED_OUT) || thumbnailPool == null) {
+			return;
+		}
+		if (standbySlot != null && !standbySlot.isEmpty()) {
+			swapPlayerSlots();
+			currentVideoId = activeSlot.getVideoId();
+			if (activeSlot.isCued()) {
+				stateMachine.fire(WallEvent.LOADED);
+				flipNext();
+			} else {
+				stateMachine.fire(WallEvent.CUE);
+			}
+			return;
+		}
+		if (!activeSlot.isReady()) {
+			return;
+		}
+		Thumbnail thumbnail = thumbnailPool.peek();
+		if (thumbnail != null && thumbnail.getVideoId() != null) {
+			stateMachine.fire(WallEvent.CUE);
+			currentVideoId = thumbnail.getVideoId();
+			Log.d(LOG_TAG, "player.cueVideo: " + currentVideoId);
+			activeSlot.cue(thumbnailPool.poll());
+		}
+	}
+
+	/**
+	 * While a video plays, load the video of the next thumbnail into the
+	 * standby player.
+	 */
+	private void maybeCueStandbyVideo() {
+		if (!stateMachine.is(WallState.VIDEO_PLAYING) || standbySlot == null || !standbySlot.isReady() || !standbySlot.isEmpty()
+				|| thumbnailPool == null) {
+			return;
+		}
+		Thumbnail thumbnail = thumbnailPool.peek();
+		if (thumbnail != null && thumbnail.getVideoId() != null) {
+			Log.d(LOG_TAG, "standby player.cueVideo: " + thumbnail.getVideoId());
+			standbySlot.cue(thumbnailPool.poll());
+		}
+	}
+
+	private void rememberWallVideo(String videoId) {
+		if (videoId == null) {
+			return;
+		}
+		wallVideoIds.remove(videoId);
+		wallVideoIds.addLast(videoId);
+		if (wallVideoIds.size() > MAX_WALL_VIDEOS) {
+			wallVideoIds.removeFirst();
+		}
+	}
+
+	/**
+	 * Persist the videos recently shown on the wall for the current playlist.
+	 */
+	private void saveWallVideos() {
+		if (wallVideoIds.isEmpty()) {
+			return;
+		}
+		StringBuilder value = new StringBuilder();
+		for (String videoId : wallVideoIds) {
+			if (value.length() > 0) {
+				value.append(',');
+			}
+			value.append(videoId);
+		}
+		try {
+			SharedPreferences settings = getSharedPreferences(PREFERENCES_NAME, Activity.MODE_PRIVATE);
+			SharedPreferences.Editor editor = settings.edit();
+			editor.putString(WALL_VIDEOS + "." + currentPlaylist, value.toString());
+			editor.commit();
+		} catch (Exception e) {
+			Log.d(LOG_TAG, "saveWallVideos", e);
+		}
+	}
+
+	/**
+	 * Restore the videos recently shown on the wall for the current playlist,
+	 * most recent first.
+	 */
+	private List<String> loadWallVideos() {
+		wallVideoIds.clear();
+		SharedPreferences settings = getSharedPreferences(PREFERENCES_NAME, Activity.MODE_PRIVATE);
+		String value = settings.getString(WALL_VIDEOS + "." + currentPlaylist, null);
+		if (value != null && value.length() > 0) {
+			for (String videoId : value.split(",")) {
+				wallVideoIds.addLast(videoId);
+			}
+		}
+		List<String> videoIds = new ArrayList<String>(wallVideoIds.size());
+		for (Iterator<String> i = wallVideoIds.descendingIterator(); i.hasNext();) {
+			videoIds.add(i.next());
+		}
+		return videoIds;
+	}
+
+	/**
+	 * An internal listener which periodically flips elements on the video
+	 * wall.
+	 */
+	private final class FlipListener implements FlipScheduler.Listener {
+
+		@Override
+		public boolean onFlip() {
+			return !isSkippingFlips() && flipNext();
+		}
+
+		@Override
+		public void onTick(int flips) {
+			// a tick without a buffered thumbnail is a skipped flip, unless
+			// every animation view was busy or flips are skipped on purpose
+			if (thumbnailPool != null && (flips > 0 || !(animationPool.isFull() || isSkippingFlips()))) {
+				if (flips == 0) {
+					// every empty tick; the event is only sent once per run
+					emptyTicks.increment();
+				}
+				if (thumbnailPool.getBuffer().recordTick(flips > 0)) {
+					Analytics.logEvent(Analytics.FLIP_UNDERRUN);
 				}
-				playerView.setVisibility(View.VISIBLE);
-				Log.d(LOG_TAG, "player.play: " + currentVideoId);
-				player.play();
-				state = State.VIDEO_PLAYING;
-			} else if (state.equals(State.LOADING_THUMBNAILS) && imageWallView.allImagesLoaded()) {
-				state = State.VIDEO_FLIPPED_OUT; // trigger flip in of an
-													// initial video
-				imageAnimationView.setDuration(FLIP_DURATION_MILLIS);
-				flipDelayHandler.sendEmptyMessage(0);
 			}
 		}
+
 	}
 
-	private void loadNextThumbnail() {
-		nextThumbnailLoaded = false;
-		if (thumbnailLoader.hasNext()) {
-			Log.d(LOG_TAG, "loadNextThumbnail next");
-			thumbnailLoader.next();
-		} else {
-			Log.d(LOG_TAG, "loadNextThumbnail first");
-			thumbnailLoader.first();
+	/**
+	 * An internal listener which makes the flips cheaper while frames are
+	 * dropped.
+	 */
+	private final class GovernorListener implements FrameRateGovernor.Listener {
+
+		@Override
+		public boolean isBusy() {
+			return animationPool.getActiveCount() > 0 || stateMachine.is(WallState.VIDEO_PLAYING);
 		}
-		Log.d(LOG_TAG, "loadNextThumbnail end");
+
+		@Override
+		public void onLevelChanged(int level) {
+			Log.d(LOG_TAG, "flip governor level " + level + ", dropped " + Math.round(frameRateGovernor.getLastDropRatio() * 100) + "%");
+			updateFlipCadence();
+			// the next flips create views with the effect of the level
+			animationPool.trim();
+			Map<String, String> parameters = new HashMap<String, String>();
+			parameters.put("level", String.valueOf(level));
+			Analytics.logEvent(Analytics.FLIP_GOVERNOR, parameters);
+		}
+
 	}
 
 	/**
-	 * A handler that periodically flips an element on the video wall.
+	 * Creates the animation views of the flips with the current cell size
+	 * and effect, just above the wall.
 	 */
-	private final class FlipDelayHandler extends Handler {
+	private final class AnimationViewFactory implements ImageAnimationViewPool.Factory {
 
 		@Override
-		public void handleMessage(Message msg) {
-			flipNext();
-			sendEmptyMessageDelayed(0, FLIP_PERIOD_MILLIS);
+		public ImageAnimationView create() {
+			// the effect chosen in the settings if the device can afford it
+			Effect effect = EffectRegistry.select(wallSettings.getEffect(), getResources().getInteger(R.integer.max_effect_cost));
+			if (frameRateGovernor.getLevel() >= FrameRateGovernor.LEVEL_CHEAP_EFFECT) {
+				effect = EffectRegistry.getCheapest();
+			}
+			ImageAnimationView view = effect.createView(VideoWallActivity.this, VideoWallActivity.this, imageWidth, imageHeight);
+			view.setPropertyAnimation(getResources().getBoolean(R.bool.property_animation));
+			if (frameStats != null) {
+				view.setFrameRecorder(frameStats.getRecorder(effect.getId()));
+			}
+			view.setKeyframeRate(getResources().getInteger(R.integer.flip_keyframe_rate));
+			view.setVisibility(View.INVISIBLE);
+			viewFrame.addView(view, viewFrame.indexOfChild(imageWallView) + 1, new LayoutParams(imageWidth, imageHeight));
+			return view;
+		}
+
+		@Override
+		public void destroy(ImageAnimationView view) {
+			viewFrame.removeView(view);
+		}
+
+	}
+
+	/**
+	 * An internal listener which logs the transitions of the wall.
+	 */
+	private final class StateListener implements WallStateMachine.Listener<WallState, WallEvent> {
+
+		@Override
+		public void onTransition(WallState from, WallEvent event, WallState to, long timeInState) {
+			Log.d(LOG_TAG, from + " --" + event + "--> " + to + " after " + timeInState + "ms");
+			if (to != WallState.VIDEO_CUED) {
+				// a flipped in video is only played while it is cued
+				cuedVideoFlipped = false;
+			}
 		}
 
 	}
 
 	/**
 	 * An internal listener which listens to thumbnail loading events from the
-	 * {@link YouTubeThumbnailView}.
+	 * {@link ThumbnailFetchPool}.
 	 */
-	private final class ThumbnailListener implements YouTubeThumbnailLoader.OnThumbnailLoadedListener {
+	private final class ThumbnailListener implements ThumbnailFetchPool.Listener {
+
+		@Override
+		public void onInitialized() {
+			Log.d(LOG_TAG, "onInitialized");
+			maybeStartDemo();
+		}
 
 		@Override
-		public void onThumbnailLoaded(YouTubeThumbnailView thumbnail, String videoId) {
-			nextThumbnailLoaded = true;
+		public void onInitializationFailure(SourceError errorReason) {
+			Log.w(LOG_TAG, "onInitializationFailure: " + errorReason);
+			if (errorReason.isUserRecoverableError()) {
+				if (errorDialog == null || !errorDialog.isShowing()) {
+					errorDialog = errorReason.getErrorDialog(VideoWallActivity.this, RECOVERY_DIALOG_REQUEST);
+					errorDialog.show();
+				}
+			} else {
+				String errorMessage = String.format(getString(R.string.error_thumbnail_view), errorReason.toString());
+				Toast.makeText(VideoWallActivity.this, errorMessage, Toast.LENGTH_LONG).show();
+			}
+		}
 
+		@Override
+		public void onThumbnailReady() {
 			if (activityResumed) {
-				if (state.equals(State.LOADING_THUMBNAILS)) {
+				if (stateMachine.is(WallState.LOADING_THUMBNAILS)) {
 					flipNext();
-				} else if (state.equals(State.VIDEO_FLIPPED_OUT)) {
+				} else if (stateMachine.is(WallState.VIDEO_FLIPPED_OUT)) {
 					// load player with the video of the next thumbnail being
 					// flipped in
-					state = State.VIDEO_LOADING;
-					currentVideoId = videoId;
-					if (currentVideoId != null) {
-						Log.d(LOG_TAG, "player.cueVideo: " + currentVideoId);
-						player.cueVideo(currentVideoId);
-					}
+					maybeCueNextVideo();
+				} else if (stateMachine.is(WallState.VIDEO_PLAYING)) {
+					maybeCueStandbyVideo();
 				}
 			}
 		}
 
+	}
+
+	/**
+	 * An internal listener which receives the player of a {@link PlayerSlot}.
+	 */
+	private final class PlayerInitializationListener implements VideoSource.OnInitializedListener {
+
+		private final PlayerSlot slot;
+
+		PlayerInitializationListener(PlayerSlot slot) {
+			this.slot = slot;
+		}
+
 		@Override
-		public void onThumbnailError(YouTubeThumbnailView thumbnail, YouTubeThumbnailLoader.ErrorReason reason) {
-			Log.w(LOG_TAG, "onThumbnailError: " + reason);
-			loadNextThumbnail();
+		public void onInitializationSuccess(VideoPlayer videoPlayer) {
+			Log.d(LOG_TAG, "onInitializationSuccess");
+			slot.setPlayer(videoPlayer);
+			videoPlayer.setPlayerStateChangeListener(new VideoListener(slot));
+			if (slot == activeSlot) {
+				maybeStartDemo();
+			} else {
+				maybeCueStandbyVideo();
+			}
+		}
+
+		@Override
+		public void onInitializationFailure(SourceError errorReason) {
+			Log.w(LOG_TAG, "onInitializationFailure: " + errorReason);
+			if (slot == standbySlot) {
+				// carry on with a single player
+				removePlayerSlot(standbySlot);
+				standbySlot = null;
+				return;
+			}
+			if (errorReason.isUserRecoverableError()) {
+				if (errorDialog == null || !errorDialog.isShowing()) {
+					errorDialog = errorReason.getErrorDialog(VideoWallActivity.this, RECOVERY_DIALOG_REQUEST);
+					errorDialog.show();
+				}
+			} else {
+				String errorMessage = String.format(getString(R.string.error_player), errorReason.toString());
+				Toast.makeText(VideoWallActivity.this, errorMessage, Toast.LENGTH_LONG).show();
+			}
 		}
 
 	}
 
-	private final class VideoListener implements YouTubePlayer.PlayerStateChangeListener {
+	/**
+	 * An internal listener which listens to the player events of a
+	 * {@link PlayerSlot}.
+	 */
+	private final class VideoListener implements VideoPlayer.PlayerStateChangeListener {
+
+		private final PlayerSlot slot;
+
+		VideoListener(PlayerSlot slot) {
+			this.slot = slot;
+		}
 
 		@Override
 		public void onLoaded(String videoId) {
-			currentVideoId = videoId;
-			if (currentVideoId != null) {
-				state = State.VIDEO_CUED;
+			boolean wasCued = slot.isCued();
+			slot.setCued(videoId);
+			if (!wasCued && slot.isCued()) {
+				cueLatency.record(SystemClock.uptimeMillis() - slot.getCueTime());
+			}
+			if (slot == activeSlot && videoId != null && stateMachine.is(WallState.VIDEO_LOADING)) {
+				currentVideoId = videoId;
+				stateMachine.fire(WallEvent.LOADED);
+			}
+		}
+
+		@Override
+		public void onVideoStarted() {
+			if (slot == activeSlot && videoEndedTime > 0) {
+				gapLatency.record(SystemClock.uptimeMillis() - videoEndedTime);
+				videoEndedTime = 0;
 			}
 		}
 
 		@Override
 		public void onVideoEnded() {
+			if (slot != activeSlot) {
+				return;
+			}
+			videoEndedTime = SystemClock.uptimeMillis();
 			if (highlightImageView.getVisibility()==View.VISIBLE) {
 				highlightImageView.startAnimation(fadeOutSlow);
 			}
 			currentVideoId = null;
-			state = State.VIDEO_ENDED;
-			imageWallView.showImage(videoCol, videoRow);
-			playerView.setVisibility(View.INVISIBLE);
+			imageWallView.uncoverPlayer();
+			slot.getView().setVisibility(View.INVISIBLE);
+			slot.clear();
 			overlayView.setVisibility(View.VISIBLE);
 			youtubeImageView.setVisibility(View.VISIBLE);
 			youtubeImageView.startAnimation(fadeIn);
+			if (standbySlot != null && standbySlot.isCued()) {
+				// hand over to the standby player right away
+				swapPlayerSlots();
+				currentVideoId = activeSlot.getVideoId();
+				stateMachine.fire(WallEvent.HANDOFF);
+				flipNext();
+			} else {
+				stateMachine.fire(WallEvent.ENDED);
+			}
 		}
 
 		@Override
-		public void onError(YouTubePlayer.ErrorReason errorReason) {
+		public void onError(VideoPlayer.ErrorReason errorReason) {
 			Log.e(LOG_TAG, "player error: " + errorReason);
+			playerErrors[errorReason.ordinal()].increment();
+			if (errorReason == VideoPlayer.ErrorReason.NOT_PLAYABLE) {
+				// don't pick this video again for a while
+				((VideoWallApplication) getApplicationContext()).getNegativeCache().recordFailure(slot.getVideoId());
+			}
+			if (slot == standbySlot) {
+				slot.clear();
+				if (errorReason == VideoPlayer.ErrorReason.UNEXPECTED_SERVICE_DISCONNECTION) {
+					// carry on with a single player
+					removePlayerSlot(standbySlot);
+					standbySlot = null;
+				} else {
+					maybeCueStandbyVideo();
+				}
+				return;
+			}
 			if (highlightImageView.getVisibility()==View.VISIBLE) {
 				highlightImageView.startAnimation(fadeOutSlow);
 			}
 			currentVideoId = null;
-			if (errorReason == YouTubePlayer.ErrorReason.UNEXPECTED_SERVICE_DISCONNECTION) {
+			imageWallView.uncoverPlayer();
+			slot.getView().setVisibility(View.INVISIBLE);
+			slot.clear();
+			if (errorReason == VideoPlayer.ErrorReason.UNEXPECTED_SERVICE_DISCONNECTION) {
 				// player has encountered an unrecoverable error - stop the demo
-				flipDelayHandler.removeCallbacksAndMessages(null);
-				state = State.UNINITIALIZED;
-				thumbnailLoader.release();
-				thumbnailLoader = null;
-				player = null;
+				flipScheduler.stop();
+				stateMachine.fire(WallEvent.RESET);
+				thumbnailPool.release();
+				thumbnailPool = null;
+				// the next resume creates a new player
+				removePlayerSlot(activeSlot);
+				activeSlot = null;
 			} else {
-				state = State.VIDEO_ENDED;
+				stateMachine.fire(WallEvent.ERROR);
 			}
 		}
 
 		// ignored callbacks
 
-		@Override
-		public void onVideoStarted() {
-		}
-
-		@Override
-		public void onAdStarted() {
-		}
-
 		@Override
 		public void onLoading() {
 		}
@@ -678,10 +1382,11 @@ public class VideoWallActivity extends Activity implements ImageAnimationListene
 
 	@Override
 	public boolean onKeyUp(int keyCode, KeyEvent event) {
+		VideoPlayer player = activeSlot != null ? activeSlot.getPlayer() : null;
 		switch (keyCode) {
 		case KeyEvent.KEYCODE_DPAD_CENTER:
 		case KeyEvent.KEYCODE_ENTER: {
-			if (currentVideoId != null && YouTubeIntents.isYouTubeInstalled(this) && YouTubeIntents.canResolvePlayVideoIntent(this)) {
+			if (currentVideoId != null && !Sources.isLocal(this) && YouTubeIntents.isYouTubeInstalled(this) && YouTubeIntents.canResolvePlayVideoIntent(this)) {
 				// open current video in YouTube app
 				Intent intent = YouTubeIntents.createPlayVideoIntentWithOptions(this, currentVideoId, true, true);
 				startActivity(intent);
@@ -690,7 +1395,7 @@ public class VideoWallActivity extends Activity implements ImageAnimationListene
 		}
 		case KeyEvent.KEYCODE_MEDIA_STOP:
 		case KeyEvent.KEYCODE_MEDIA_NEXT: {
-			if (state.equals(State.VIDEO_PLAYING)) {
+			if (stateMachine.is(WallState.VIDEO_PLAYING)) {
 				if (player != null && player.isPlaying()) {
 					// end the current playing video
 					player.seekToMillis(player.getDurationMillis());
@@ -699,7 +1404,7 @@ public class VideoWallActivity extends Activity implements ImageAnimationListene
 			return true;
 		}
 		case KeyEvent.KEYCODE_MEDIA_PAUSE: {
-			if (state.equals(State.VIDEO_PLAYING)) {
+			if (stateMachine.is(WallState.VIDEO_PLAYING)) {
 				if (player != null && player.isPlaying()) {
 					player.pause();
 				}
@@ -707,7 +1412,7 @@ public class VideoWallActivity extends Activity implements ImageAnimationListene
 			return true;
 		}
 		case KeyEvent.KEYCODE_MEDIA_PLAY: {
-			if (state.equals(State.VIDEO_PLAYING)) {
+			if (stateMachine.is(WallState.VIDEO_PLAYING)) {
 				if (player != null && !player.isPlaying()) {
 					player.play();
 				}
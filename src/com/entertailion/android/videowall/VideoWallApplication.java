@@ -15,9 +15,17 @@
  */
 package com.entertailion.android.videowall;
 
+import java.io.File;
+
 import android.app.Application;
 import android.content.Context;
 import android.graphics.Typeface;
+import android.text.format.DateUtils;
+
+import com.entertailion.android.videowall.thumbnail.BitmapPool;
+import com.entertailion.android.videowall.thumbnail.NegativeCache;
+import com.entertailion.android.videowall.thumbnail.ThumbnailCache;
+import com.entertailion.android.videowall.utils.MetricsRegistry;
 
 /**
  * Application shared data.
@@ -33,12 +41,27 @@ public class VideoWallApplication extends Application {
 	private Typeface thinTypeface = null;
 	private Typeface mediumTypeface = null;
 	private Typeface italicTypeface = null;
+	private ThumbnailCache thumbnailCache = null;
+	private BitmapPool bitmapPool = null;
+	private NegativeCache negativeCache = null;
+	private MetricsRegistry metrics = null;
 
 	@Override
 	public void onCreate() {
 		super.onCreate();
 	}
 
+	@Override
+	public void onLowMemory() {
+		super.onLowMemory();
+		if (thumbnailCache != null) {
+			thumbnailCache.clearMemory();
+		}
+		if (bitmapPool != null) {
+			bitmapPool.clear();
+		}
+	}
+
 	/**
 	 * Get the light typeface
 	 * 
@@ -91,4 +114,56 @@ public class VideoWallApplication extends Application {
 		return italicTypeface;
 	}
 
+	/**
+	 * Get the thumbnail cache shared by all activities
+	 * 
+	 * @return
+	 */
+	public ThumbnailCache getThumbnailCache() {
+		if (thumbnailCache == null) {
+			int memoryBytes = (int) (Runtime.getRuntime().maxMemory() / 100 * getResources().getInteger(R.integer.thumbnail_memory_cache_percent));
+			long diskBytes = getResources().getInteger(R.integer.thumbnail_disk_cache_mb) * 1024L * 1024L;
+			thumbnailCache = new ThumbnailCache(new File(getCacheDir(), "thumbnails"), memoryBytes, diskBytes);
+		}
+		return thumbnailCache;
+	}
+
+	/**
+	 * Get the pool of reusable thumbnail bitmaps
+	 * 
+	 * @return
+	 */
+	public BitmapPool getBitmapPool() {
+		if (bitmapPool == null) {
+			bitmapPool = new BitmapPool(getResources().getInteger(R.integer.bitmap_pool_mb) * 1024L * 1024L);
+		}
+		return bitmapPool;
+	}
+
+	/**
+	 * Get the cache of videos which recently failed to load
+	 * 
+	 * @return
+	 */
+	public NegativeCache getNegativeCache() {
+		if (negativeCache == null) {
+			long baseTtl = getResources().getInteger(R.integer.negative_cache_ttl_minutes) * DateUtils.MINUTE_IN_MILLIS;
+			long maxTtl = getResources().getInteger(R.integer.negative_cache_max_ttl_hours) * DateUtils.HOUR_IN_MILLIS;
+			negativeCache = new NegativeCache(new File(getFilesDir(), "negative_cache"), baseTtl, maxTtl);
+		}
+		return negativeCache;
+	}
+
+	/**
+	 * Get the metrics of the wall shared by all activities
+	 * 
+	 * @return
+	 */
+	public MetricsRegistry getMetrics() {
+		if (metrics == null) {
+			metrics = new MetricsRegistry();
+		}
+		return metrics;
+	}
+
 }
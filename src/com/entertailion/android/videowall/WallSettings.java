@@ -0,0 +1,117 @@
+/*
+ * Copyright (C) 2013 ENTERTAILION LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.entertailion.android.videowall;
+
+import android.content.SharedPreferences;
+
+import com.entertailion.android.videowall.animation.EffectRegistry;
+
+/**
+ * A snapshot of the user settings which shape the wall, used to work out what
+ * has to be rebuilt when the activity resumes.
+ */
+class WallSettings {
+
+	private final int rows;
+	private final int padding;
+	private final String effect;
+	private final boolean highlight;
+	private final String playlist;
+
+	WallSettings(int rows, int padding, String effect, boolean highlight, String playlist) {
+		this.rows = rows;
+		this.padding = padding;
+		this.effect = effect;
+		this.highlight = highlight;
+		this.playlist = playlist;
+	}
+
+	/**
+	 * Read the settings from the default shared preferences.
+	 * 
+	 * @param defaultRows
+	 *            the number of rows if none or an invalid value is set
+	 * @param defaultPadding
+	 *            the thin border in dp
+	 */
+	static WallSettings read(SharedPreferences preferences, String playlist, int defaultRows, int defaultPadding) {
+		int padding = defaultPadding;
+		String paddingValue = preferences.getString(PreferencesActivity.GENERAL_BORDER, String.valueOf(defaultPadding));
+		if (paddingValue.equals(PreferencesActivity.BORDER_NONE)) {
+			padding = 0;
+		} else if (paddingValue.equals(PreferencesActivity.BORDER_THIN)) {
+			padding = defaultPadding;
+		} else if (paddingValue.equals(PreferencesActivity.BORDER_THICK)) {
+			padding = defaultPadding * 2;
+		}
+
+		int rows = defaultRows;
+		try {
+			rows = Integer.parseInt(preferences.getString(PreferencesActivity.GENERAL_ROWS, String.valueOf(defaultRows)));
+		} catch (NumberFormatException e) {
+		}
+
+		String effect = preferences.getString(PreferencesActivity.GENERAL_EFFECT, EffectRegistry.getDefault().getId());
+		boolean highlight = preferences.getBoolean(PreferencesActivity.GENERAL_HIGHLIGHT, true);
+		return new WallSettings(rows, padding, effect, highlight, playlist);
+	}
+
+	int getRows() {
+		return rows;
+	}
+
+	/**
+	 * @return the padding between thumbnails in dp.
+	 */
+	int getPadding() {
+		return padding;
+	}
+
+	String getEffect() {
+		return effect;
+	}
+
+	boolean isHighlight() {
+		return highlight;
+	}
+
+	String getPlaylist() {
+		return playlist;
+	}
+
+	/**
+	 * @return true if the size of the thumbnails or the grid differs, which
+	 *         invalidates the wall, the decoded thumbnails and the player
+	 *         bounds.
+	 */
+	boolean geometryDiffers(WallSettings other) {
+		return other == null || rows != other.rows || padding != other.padding;
+	}
+
+	boolean playlistDiffers(WallSettings other) {
+		return other == null || !playlist.equals(other.playlist);
+	}
+
+	boolean effectDiffers(WallSettings other) {
+		return other == null || !effect.equals(other.effect);
+	}
+
+	@Override
+	public String toString() {
+		return "rows=" + rows + ", padding=" + padding + ", effect=" + effect + ", highlight=" + highlight + ", playlist=" + playlist;
+	}
+
+}
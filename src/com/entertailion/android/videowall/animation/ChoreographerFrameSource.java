@@ -0,0 +1,67 @@
+/*
+ * Copyright (C) 2013 ENTERTAILION LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.entertailion.android.videowall.animation;
+
+import android.annotation.TargetApi;
+import android.os.Build;
+import android.os.SystemClock;
+import android.view.Choreographer;
+
+/**
+ * A {@link FrameSource} which calls back on vsync through the
+ * {@link Choreographer}.
+ */
+@TargetApi(Build.VERSION_CODES.JELLY_BEAN)
+public class ChoreographerFrameSource implements FrameSource {
+
+	private final Choreographer choreographer = Choreographer.getInstance();
+	private Callback callback;
+
+	private final Choreographer.FrameCallback frameCallback = new Choreographer.FrameCallback() {
+
+		@Override
+		public void doFrame(long frameTimeNanos) {
+			Callback frameCallback = callback;
+			callback = null;
+			if (frameCallback != null) {
+				// the frame time shares the time base of uptimeMillis
+				frameCallback.doFrame(frameTimeNanos / 1000000);
+			}
+		}
+
+	};
+
+	@Override
+	public void postFrame(Callback callback, long delayMillis) {
+		choreographer.removeFrameCallback(frameCallback);
+		this.callback = callback;
+		choreographer.postFrameCallbackDelayed(frameCallback, Math.max(0, delayMillis));
+	}
+
+	@Override
+	public void removeFrame(Callback callback) {
+		if (this.callback == callback) {
+			choreographer.removeFrameCallback(frameCallback);
+			this.callback = null;
+		}
+	}
+
+	@Override
+	public long uptimeMillis() {
+		return SystemClock.uptimeMillis();
+	}
+
+}
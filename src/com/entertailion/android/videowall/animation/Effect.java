@@ -0,0 +1,114 @@
+/*
+ * Copyright (C) 2013 ENTERTAILION LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.entertailion.android.videowall.animation;
+
+import android.content.Context;
+
+/**
+ * A transition effect of the wall: the {@link ImageAnimationView} which runs
+ * it, how it is named in the settings, and what it costs to render. Effects
+ * are listed in the {@link EffectRegistry}.
+ */
+public class Effect {
+
+	/**
+	 * Creates the views which run an effect.
+	 */
+	public interface Factory {
+
+		ImageAnimationView create(Context context, ImageAnimationListener listener, int width, int height);
+
+	}
+
+	// relative CPU work per frame
+	public static final int CPU_LOW = 1;
+	public static final int CPU_MEDIUM = 2;
+	public static final int CPU_HIGH = 3;
+
+	private final String id;
+	private final int labelId;
+	private final String event;
+	private final Factory factory;
+	private final int cpuCost;
+	private final boolean needsLayer;
+	private final int overdraw;
+
+	/**
+	 * @param id
+	 *            the value stored in the settings.
+	 * @param labelId
+	 *            the string resource shown in the settings.
+	 * @param event
+	 *            the analytics event logged when the effect is chosen.
+	 * @param cpuCost
+	 *            the CPU work per frame, {@link #CPU_LOW} to {@link #CPU_HIGH}.
+	 * @param needsLayer
+	 *            true if the effect only runs smoothly on a hardware layer.
+	 * @param overdraw
+	 *            how many times the pixels of a cell are drawn per frame.
+	 */
+	public Effect(String id, int labelId, String event, Factory factory, int cpuCost, boolean needsLayer, int overdraw) {
+		this.id = id;
+		this.labelId = labelId;
+		this.event = event;
+		this.factory = factory;
+		this.cpuCost = cpuCost;
+		this.needsLayer = needsLayer;
+		this.overdraw = overdraw;
+	}
+
+	public ImageAnimationView createView(Context context, ImageAnimationListener listener, int width, int height) {
+		return factory.create(context, listener, width, height);
+	}
+
+	public String getId() {
+		return id;
+	}
+
+	public int getLabelId() {
+		return labelId;
+	}
+
+	public String getEvent() {
+		return event;
+	}
+
+	public int getCpuCost() {
+		return cpuCost;
+	}
+
+	public boolean needsLayer() {
+		return needsLayer;
+	}
+
+	public int getOverdraw() {
+		return overdraw;
+	}
+
+	/**
+	 * @return the overall cost used to compare effects: the CPU work, the
+	 *         overdraw, and one more if a layer has to be rendered.
+	 */
+	public int getCost() {
+		return cpuCost + overdraw + (needsLayer ? 1 : 0);
+	}
+
+	@Override
+	public String toString() {
+		return id + " (cpu=" + cpuCost + ", layer=" + needsLayer + ", overdraw=" + overdraw + ")";
+	}
+
+}
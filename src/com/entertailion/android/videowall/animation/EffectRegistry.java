@@ -0,0 +1,109 @@
+/*
+ * Copyright (C) 2013 ENTERTAILION LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.entertailion.android.videowall.animation;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The transition effects the wall can use. Each {@link ImageAnimationView}
+ * subclass declares its {@link Effect}; adding an effect only takes
+ * registering it here.
+ */
+public final class EffectRegistry {
+
+	private static final List<Effect> effects = new ArrayList<Effect>();
+
+	static {
+		register(FlipImageAnimationView.EFFECT);
+		register(FadingImageAnimationView.EFFECT);
+		register(RightLeftImageAnimationView.EFFECT);
+		register(TopDownImageAnimationView.EFFECT);
+	}
+
+	private EffectRegistry() {
+	}
+
+	/**
+	 * Add an effect, in the order the settings list them. An effect
+	 * registered with the id of another one replaces it.
+	 */
+	public static synchronized void register(Effect effect) {
+		for (int i = 0; i < effects.size(); i++) {
+			if (effects.get(i).getId().equals(effect.getId())) {
+				effects.set(i, effect);
+				return;
+			}
+		}
+		effects.add(effect);
+	}
+
+	/**
+	 * @return the registered effects in the order of the settings.
+	 */
+	public static synchronized List<Effect> getEffects() {
+		return Collections.unmodifiableList(new ArrayList<Effect>(effects));
+	}
+
+	/**
+	 * @return the default effect.
+	 */
+	public static Effect getDefault() {
+		return FlipImageAnimationView.EFFECT;
+	}
+
+	/**
+	 * @return the effect with an id, or the default effect if there is none.
+	 */
+	public static synchronized Effect get(String id) {
+		for (Effect effect : effects) {
+			if (effect.getId().equals(id)) {
+				return effect;
+			}
+		}
+		return getDefault();
+	}
+
+	/**
+	 * @return the effect which costs the least to render.
+	 */
+	public static synchronized Effect getCheapest() {
+		Effect cheapest = getDefault();
+		for (Effect effect : effects) {
+			if (effect.getCost() < cheapest.getCost()) {
+				cheapest = effect;
+			}
+		}
+		return cheapest;
+	}
+
+	/**
+	 * @param maxCost
+	 *            the most an effect may cost on this device, see
+	 *            {@link Effect#getCost()}, or 0 for no limit.
+	 * @return the effect with an id if it fits the cost, otherwise the
+	 *         cheapest effect.
+	 */
+	public static Effect select(String id, int maxCost) {
+		Effect effect = get(id);
+		if (maxCost > 0 && effect.getCost() > maxCost) {
+			return getCheapest();
+		}
+		return effect;
+	}
+
+}
@@ -18,10 +18,14 @@
 package com.entertailion.android.videowall.animation;
 
 import android.content.Context;
+import android.view.View;
 import android.view.animation.AccelerateInterpolator;
 import android.view.animation.AlphaAnimation;
 import android.view.animation.Animation;
 
+import com.entertailion.android.videowall.R;
+import com.entertailion.android.videowall.utils.Analytics;
+
 /**
  * A view which animates from one ImageView to another view using animation.
  */
@@ -29,6 +33,16 @@ public class FadingImageAnimationView extends ImageAnimationView {
 
 	private static final String LOG_TAG = "FadingImageAnimationView";
 
+	// the incoming view is blended over the outgoing one
+	public static final Effect EFFECT = new Effect("fade", R.string.preferences_general_effect_fade, Analytics.EFFECT_FADE, new Effect.Factory() {
+
+		@Override
+		public ImageAnimationView create(Context context, ImageAnimationListener listener, int width, int height) {
+			return new FadingImageAnimationView(context, listener, width, height);
+		}
+
+	}, Effect.CPU_LOW, false, 2);
+
 	/**
 	 * Create a view which performs an animation from one view to another.
 	 * 
@@ -56,4 +70,13 @@ public class FadingImageAnimationView extends ImageAnimationView {
 		return null;
 	}
 
+	@Override
+	protected void applyOutFraction(View view, float fraction) {
+	}
+
+	@Override
+	protected void applyInFraction(View view, float fraction) {
+		view.setAlpha(fraction);
+	}
+
 }
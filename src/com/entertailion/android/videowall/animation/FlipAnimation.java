@@ -55,6 +55,17 @@ public class FlipAnimation extends Animation {
 
 	private float scale;
 
+	// keyframes per second of the precomputed table; 0 computes every frame
+	private int keyframeRate;
+	// the matrix values of each keyframe, MATRIX_SIZE floats per keyframe
+	private float[] keyframes;
+	private long keyframesDuration;
+	private final float[] values = new float[MATRIX_SIZE];
+	private final Matrix keyframeMatrix = new Matrix();
+
+	private static final int MATRIX_SIZE = 9;
+	private static final int MIN_KEYFRAMES = 2;
+
 	/**
 	 * Constructs a new {@code FlipAnimation} object.Two {@code FlipAnimation}
 	 * objects are needed for a complete transition b/n two views.
@@ -90,14 +101,67 @@ public class FlipAnimation extends Animation {
 		this.scaleType = scaleType == null ? ScaleUpDownEnum.SCALE_CYCLE : scaleType;
 	}
 
+	/**
+	 * Precompute the transformation at the given number of keyframes per
+	 * second of the animation's duration; frames then only interpolate
+	 * between the two nearest keyframes.
+	 * 
+	 * @param keyframeRate
+	 *            keyframes per second, or 0 to compute every frame.
+	 */
+	public void setKeyframeRate(int keyframeRate) {
+		if (keyframeRate != this.keyframeRate) {
+			this.keyframeRate = Math.max(0, keyframeRate);
+			keyframes = null;
+		}
+	}
+
 	@Override
 	public void initialize(int width, int height, int parentWidth, int parentHeight) {
 		super.initialize(width, height, parentWidth, parentHeight);
-		mCamera = new Camera();
+		if (mCamera == null) {
+			mCamera = new Camera();
+		}
+		if (keyframeRate > 0 && (keyframes == null || keyframesDuration != getDuration())) {
+			buildKeyframes();
+		}
+	}
+
+	/**
+	 * Compute the matrix values at evenly spaced interpolated times.
+	 */
+	private void buildKeyframes() {
+		keyframesDuration = getDuration();
+		int count = Math.max(MIN_KEYFRAMES, (int) (keyframesDuration * keyframeRate / 1000) + 1);
+		keyframes = new float[count * MATRIX_SIZE];
+		for (int i = 0; i < count; i++) {
+			computeMatrix((float) i / (count - 1), keyframeMatrix);
+			keyframeMatrix.getValues(values);
+			System.arraycopy(values, 0, keyframes, i * MATRIX_SIZE, MATRIX_SIZE);
+		}
 	}
 
 	@Override
 	protected void applyTransformation(float interpolatedTime, Transformation t) {
+		final Matrix matrix = t.getMatrix();
+		final float[] table = keyframes;
+		if (table == null) {
+			computeMatrix(interpolatedTime, matrix);
+			return;
+		}
+		int last = table.length / MATRIX_SIZE - 1;
+		float position = Math.max(0, Math.min(1, interpolatedTime)) * last;
+		int index = Math.min((int) position, last - 1);
+		float fraction = position - index;
+		int from = index * MATRIX_SIZE;
+		int to = from + MATRIX_SIZE;
+		for (int i = 0; i < MATRIX_SIZE; i++) {
+			values[i] = table[from + i] + (table[to + i] - table[from + i]) * fraction;
+		}
+		matrix.setValues(values);
+	}
+
+	private void computeMatrix(float interpolatedTime, Matrix matrix) {
 		final float fromDegrees = mFromDegrees;
 		float degrees = fromDegrees + ((mToDegrees - fromDegrees) * interpolatedTime);
 
@@ -105,8 +169,6 @@ public class FlipAnimation extends Animation {
 		final float centerY = mCenterY;
 		final Camera camera = mCamera;
 
-		final Matrix matrix = t.getMatrix();
-
 		camera.save();
 
 		camera.rotateY(degrees);
@@ -117,8 +179,8 @@ public class FlipAnimation extends Animation {
 		matrix.preTranslate(-centerX, -centerY);
 		matrix.postTranslate(centerX, centerY);
 
-		matrix.preScale(scaleType.getScale(scale, interpolatedTime), scaleType.getScale(scale, interpolatedTime), centerX, centerY);
-
+		final float currentScale = scaleType.getScale(scale, interpolatedTime);
+		matrix.preScale(currentScale, currentScale, centerX, centerY);
 	}
 
 	/**
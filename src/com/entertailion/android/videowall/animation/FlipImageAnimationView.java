@@ -21,6 +21,9 @@ import android.content.Context;
 import android.view.animation.AccelerateInterpolator;
 import android.view.animation.Animation;
 
+import com.entertailion.android.videowall.R;
+import com.entertailion.android.videowall.utils.Analytics;
+
 /**
  * A view which animates from one ImageView to another view using animation.
  */
@@ -28,6 +31,16 @@ public class FlipImageAnimationView extends ImageAnimationView {
 
 	private static final String LOG_TAG = "FlipImageAnimationView";
 
+	// a 3D rotation through the camera for both views
+	public static final Effect EFFECT = new Effect("flip", R.string.preferences_general_effect_flip, Analytics.EFFECT_FLIP, new Effect.Factory() {
+
+		@Override
+		public ImageAnimationView create(Context context, ImageAnimationListener listener, int width, int height) {
+			return new FlipImageAnimationView(context, listener, width, height);
+		}
+
+	}, Effect.CPU_HIGH, true, 2);
+
 	/**
 	 * Create a view which performs an animation from one view to another.
 	 * 
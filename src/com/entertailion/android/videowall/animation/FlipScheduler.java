@@ -0,0 +1,164 @@
+/*
+ * Copyright (C) 2013 ENTERTAILION LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.entertailion.android.videowall.animation;
+
+import java.util.Random;
+
+import com.entertailion.android.videowall.utils.Histogram;
+
+/**
+ * Starts the periodic flips of the wall on display frames, so a flip never
+ * starts in the middle of a frame. Flip times are kept on a fixed cadence
+ * from the time the scheduler started, so they do not drift with the load of
+ * the message queue, optionally shifted by a random jitter. In wave mode
+ * several flips start in the same frame.
+ * 
+ * All methods must be called on the UI thread. The scheduler has no Android
+ * dependencies besides its frame source, so its cadence can be checked on the
+ * JVM with a {@link VirtualFrameSource}.
+ */
+public class FlipScheduler implements FrameSource.Callback {
+
+	// a frame this close to a flip time is taken as on time
+	private static final long FRAME_TOLERANCE_MILLIS = 8;
+	private static final long MAX_LATENESS_MILLIS = 10000;
+
+	/**
+	 * Starts the flips of the scheduler.
+	 */
+	public interface Listener {
+
+		/**
+		 * Start a flip.
+		 * 
+		 * @return false if no flip could be started.
+		 */
+		boolean onFlip();
+
+		/**
+		 * Called after each scheduled flip time.
+		 * 
+		 * @param flips
+		 *            the number of flips started, 0 to the wave size.
+		 */
+		void onTick(int flips);
+
+	}
+
+	private final FrameSource frameSource;
+	private final Listener listener;
+	private final Random random;
+	private long period;
+	private long jitter;
+	private int waveSize = 1;
+
+	private boolean running;
+	// the flip times on the cadence, and the next one with its jitter
+	private long cadenceTime;
+	private long nextFlipTime;
+	// how late the frames of the flip times were
+	private final Histogram lateness = new Histogram(MAX_LATENESS_MILLIS, 4);
+
+	public FlipScheduler(FrameSource frameSource, Listener listener, Random random) {
+		this.frameSource = frameSource;
+		this.listener = listener;
+		this.random = random;
+	}
+
+	/**
+	 * @param period
+	 *            the time between flips in milliseconds.
+	 * @param jitter
+	 *            the most a flip may be moved earlier or later at random, in
+	 *            milliseconds.
+	 */
+	public void setCadence(long period, long jitter) {
+		this.period = Math.max(1, period);
+		this.jitter = Math.max(0, Math.min(jitter, this.period - 1));
+	}
+
+	/**
+	 * @param waveSize
+	 *            the number of flips started in the same frame.
+	 */
+	public void setWaveSize(int waveSize) {
+		this.waveSize = Math.max(1, waveSize);
+	}
+
+	/**
+	 * Flip on the next frame and then on the cadence. Starting a running
+	 * scheduler starts its cadence over.
+	 */
+	public void start() {
+		running = true;
+		cadenceTime = frameSource.uptimeMillis();
+		nextFlipTime = cadenceTime;
+		frameSource.postFrame(this, 0);
+	}
+
+	public void stop() {
+		running = false;
+		frameSource.removeFrame(this);
+	}
+
+	public boolean isRunning() {
+		return running;
+	}
+
+	@Override
+	public void doFrame(long frameTimeMillis) {
+		if (!running) {
+			return;
+		}
+		if (frameTimeMillis + FRAME_TOLERANCE_MILLIS >= nextFlipTime) {
+			lateness.record(frameTimeMillis - nextFlipTime);
+			int flips = 0;
+			while (flips < waveSize && listener.onFlip()) {
+				flips++;
+			}
+			listener.onTick(flips);
+			if (!running) {
+				// stopped by the listener
+				return;
+			}
+			cadenceTime += period;
+			if (cadenceTime <= frameTimeMillis) {
+				// too far behind, e.g. after a long frame: skip the missed
+				// flips rather than catch up in a burst
+				cadenceTime = frameTimeMillis + period;
+			}
+			// the jitter does not accumulate, so the cadence holds on average
+			nextFlipTime = cadenceTime;
+			if (jitter > 0) {
+				nextFlipTime += (long) ((random.nextFloat() * 2 - 1) * jitter);
+			}
+		}
+		frameSource.postFrame(this, nextFlipTime - frameSource.uptimeMillis());
+	}
+
+	/**
+	 * @return how late the frames of the flip times were, in milliseconds.
+	 */
+	public Histogram getLateness() {
+		return lateness;
+	}
+
+	@Override
+	public String toString() {
+		return "period=" + period + ", jitter=" + jitter + ", wave=" + waveSize + ", lateness: " + lateness;
+	}
+
+}
@@ -0,0 +1,201 @@
+/*
+ * Copyright (C) 2013 ENTERTAILION LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.entertailion.android.videowall.animation;
+
+/**
+ * Measures the frames dropped while the wall is busy, i.e. while cells flip
+ * or a video plays, and steps the cost of the flips down when too many
+ * frames are dropped: first the flips become less frequent, then a cheaper
+ * effect is used, and finally the periodic flips are skipped while a video
+ * plays. Levels are restored one at a time once there is headroom again.
+ * 
+ * The frame source must call back on display frames, see
+ * {@link FrameSources#hasDisplayFrames()}; the intervals between handler
+ * messages say nothing about dropped frames.
+ * 
+ * All methods must be called on the UI thread. Like {@link FlipScheduler},
+ * the governor only depends on its frame source.
+ */
+public class FrameRateGovernor implements FrameSource.Callback {
+
+	/** Flips run as configured. */
+	public static final int LEVEL_NORMAL = 0;
+	/** The time between periodic flips is lengthened. */
+	public static final int LEVEL_SLOW = 1;
+	/** The cheapest effect is used in addition. */
+	public static final int LEVEL_CHEAP_EFFECT = 2;
+	/** Periodic flips are skipped while a video plays in addition. */
+	public static final int LEVEL_SKIP = 3;
+
+	// frames measured per decision
+	private static final int WINDOW_FRAMES = 60;
+	// windows with headroom needed before a level is restored
+	private static final int RECOVERY_WINDOWS = 5;
+	// how often the wall is checked for work while it is idle
+	private static final long IDLE_POLL_MILLIS = 250;
+
+	/**
+	 * Tells the governor when to measure and receives its decisions.
+	 */
+	public interface Listener {
+
+		/**
+		 * @return true while cells flip or a video plays; frames are only
+		 *         measured then.
+		 */
+		boolean isBusy();
+
+		void onLevelChanged(int level);
+
+	}
+
+	private final FrameSource frameSource;
+	private final Listener listener;
+	private final float frameMillis;
+	private final float dropBudget;
+
+	private boolean running;
+	private int level = LEVEL_NORMAL;
+	private long lastFrameTime;
+	private int windowFrames;
+	private int windowDropped;
+	private int headroomWindows;
+	private float lastDropRatio;
+
+	// exposed as metrics
+	private long measuredFrames;
+	private long droppedFrames;
+	private int windows;
+	private int downgrades;
+	private int upgrades;
+
+	/**
+	 * @param refreshRate
+	 *            the refresh rate of the display in frames per second.
+	 * @param dropBudget
+	 *            the share of frames, 0 to 1, which may be dropped before the
+	 *            flips are made cheaper. Levels are restored below half of it.
+	 */
+	public FrameRateGovernor(FrameSource frameSource, Listener listener, float refreshRate, float dropBudget) {
+		this.frameSource = frameSource;
+		this.listener = listener;
+		this.frameMillis = 1000f / (refreshRate > 0 ? refreshRate : 60);
+		this.dropBudget = dropBudget;
+	}
+
+	public void start() {
+		running = true;
+		lastFrameTime = 0;
+		frameSource.postFrame(this, 0);
+	}
+
+	public void stop() {
+		running = false;
+		frameSource.removeFrame(this);
+	}
+
+	public int getLevel() {
+		return level;
+	}
+
+	@Override
+	public void doFrame(long frameTimeMillis) {
+		if (!running) {
+			return;
+		}
+		if (!listener.isBusy()) {
+			// intervals spanning an idle period say nothing about the load
+			lastFrameTime = 0;
+			frameSource.postFrame(this, IDLE_POLL_MILLIS);
+			return;
+		}
+		if (lastFrameTime > 0) {
+			long interval = frameTimeMillis - lastFrameTime;
+			int dropped = Math.max(0, Math.round(interval / frameMillis) - 1);
+			windowFrames++;
+			windowDropped += dropped;
+			measuredFrames++;
+			droppedFrames += dropped;
+			if (windowFrames >= WINDOW_FRAMES) {
+				decide();
+			}
+		}
+		lastFrameTime = frameTimeMillis;
+		frameSource.postFrame(this, 0);
+	}
+
+	/**
+	 * Step the level at the end of a measurement window.
+	 */
+	private void decide() {
+		float dropRatio = (float) windowDropped / (windowFrames + windowDropped);
+		lastDropRatio = dropRatio;
+		windows++;
+		windowFrames = 0;
+		windowDropped = 0;
+		if (dropRatio > dropBudget) {
+			headroomWindows = 0;
+			if (level < LEVEL_SKIP) {
+				downgrades++;
+				setLevel(level + 1);
+			}
+		} else if (dropRatio < dropBudget / 2 && level > LEVEL_NORMAL) {
+			headroomWindows++;
+			if (headroomWindows >= RECOVERY_WINDOWS) {
+				headroomWindows = 0;
+				upgrades++;
+				setLevel(level - 1);
+			}
+		} else {
+			headroomWindows = 0;
+		}
+	}
+
+	private void setLevel(int level) {
+		this.level = level;
+		listener.onLevelChanged(level);
+	}
+
+	public long getMeasuredFrames() {
+		return measuredFrames;
+	}
+
+	public long getDroppedFrames() {
+		return droppedFrames;
+	}
+
+	public int getDowngrades() {
+		return downgrades;
+	}
+
+	public int getUpgrades() {
+		return upgrades;
+	}
+
+	/**
+	 * @return the share of frames dropped in the last measurement window.
+	 */
+	public float getLastDropRatio() {
+		return lastDropRatio;
+	}
+
+	@Override
+	public String toString() {
+		return "level=" + level + ", frames=" + measuredFrames + ", dropped=" + droppedFrames + ", windows=" + windows + ", downgrades="
+				+ downgrades + ", upgrades=" + upgrades;
+	}
+
+}
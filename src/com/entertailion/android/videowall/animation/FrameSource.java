@@ -0,0 +1,55 @@
+/*
+ * Copyright (C) 2013 ENTERTAILION LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.entertailion.android.videowall.animation;
+
+/**
+ * Delivers display frames to a {@link FlipScheduler}. Besides the
+ * implementations tied to the display, {@link VirtualFrameSource} advances
+ * its own clock so the scheduler's cadence can be verified without a device.
+ */
+public interface FrameSource {
+
+	/**
+	 * Receives the frames requested from a {@link FrameSource}.
+	 */
+	public interface Callback {
+
+		/**
+		 * @param frameTimeMillis
+		 *            the time the frame started rendering, in the time base
+		 *            of {@link FrameSource#uptimeMillis()}.
+		 */
+		void doFrame(long frameTimeMillis);
+
+	}
+
+	/**
+	 * Call back on the first frame at least the given time from now,
+	 * replacing a frame already requested.
+	 */
+	void postFrame(Callback callback, long delayMillis);
+
+	/**
+	 * Cancel the frame requested.
+	 */
+	void removeFrame(Callback callback);
+
+	/**
+	 * @return the current time in milliseconds.
+	 */
+	long uptimeMillis();
+
+}
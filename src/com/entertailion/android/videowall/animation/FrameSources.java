@@ -0,0 +1,44 @@
+/*
+ * Copyright (C) 2013 ENTERTAILION LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.entertailion.android.videowall.animation;
+
+import android.os.Build;
+
+/**
+ * Creates the {@link FrameSource} of the display, using the Choreographer
+ * where it is available.
+ */
+public final class FrameSources {
+
+	private FrameSources() {
+	}
+
+	public static FrameSource create() {
+		if (hasDisplayFrames()) {
+			return new ChoreographerFrameSource();
+		}
+		return new HandlerFrameSource();
+	}
+
+	/**
+	 * @return true if the sources of {@link #create()} call back on display
+	 *         frames rather than approximating them.
+	 */
+	public static boolean hasDisplayFrames() {
+		return Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN;
+	}
+
+}
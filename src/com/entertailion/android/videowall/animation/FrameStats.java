@@ -0,0 +1,187 @@
+/*
+ * Copyright (C) 2013 ENTERTAILION LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.entertailion.android.videowall.animation;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+import com.entertailion.android.videowall.utils.Histogram;
+
+/**
+ * The frames drawn by the transitions of each effect: the interval between
+ * frames, the time taken to transform and draw the views of a frame, and the
+ * frames dropped, so effects can be compared on a device.
+ * 
+ * All methods must be called on the UI thread.
+ */
+public class FrameStats {
+
+	// microseconds tracked precisely
+	private static final long MAX_INTERVAL_MICROS = 1000000;
+	private static final long MAX_DRAW_MICROS = 100000;
+	private static final int PRECISION = 5;
+
+	/**
+	 * Records the frames of the transitions of one effect.
+	 */
+	public static class Recorder {
+
+		private final String effectId;
+		private final float frameMicros;
+		private final Histogram intervals = new Histogram(MAX_INTERVAL_MICROS, PRECISION);
+		private final Histogram drawTimes = new Histogram(MAX_DRAW_MICROS, PRECISION);
+		private long transitions;
+		private long droppedFrames;
+
+		Recorder(String effectId, float frameMicros) {
+			this.effectId = effectId;
+			this.frameMicros = frameMicros;
+		}
+
+		/**
+		 * @param intervalNanos
+		 *            the time since the previous frame of the transition, or
+		 *            a negative value for its first frame.
+		 * @param drawNanos
+		 *            the time taken to transform and draw the frame.
+		 */
+		public void recordFrame(long intervalNanos, long drawNanos) {
+			if (intervalNanos >= 0) {
+				long intervalMicros = intervalNanos / 1000;
+				intervals.record(intervalMicros);
+				droppedFrames += Math.max(0, Math.round(intervalMicros / frameMicros) - 1);
+			}
+			drawTimes.record(drawNanos / 1000);
+		}
+
+		public void recordTransition() {
+			transitions++;
+		}
+
+		public String getEffectId() {
+			return effectId;
+		}
+
+		public long getTransitions() {
+			return transitions;
+		}
+
+		public long getDroppedFrames() {
+			return droppedFrames;
+		}
+
+		public Histogram getIntervals() {
+			return intervals;
+		}
+
+		public Histogram getDrawTimes() {
+			return drawTimes;
+		}
+
+		void reset() {
+			intervals.reset();
+			drawTimes.reset();
+			transitions = 0;
+			droppedFrames = 0;
+		}
+
+		@Override
+		public String toString() {
+			return effectId + ": transitions=" + transitions + ", frames=" + drawTimes.getCount() + ", dropped=" + droppedFrames + ", interval "
+					+ percentiles(intervals) + ", draw " + percentiles(drawTimes);
+		}
+
+	}
+
+	private final float frameMicros;
+	private final Map<String, Recorder> recorders = new LinkedHashMap<String, Recorder>();
+
+	/**
+	 * @param refreshRate
+	 *            the refresh rate of the display in frames per second.
+	 */
+	public FrameStats(float refreshRate) {
+		frameMicros = 1000000f / (refreshRate > 0 ? refreshRate : 60);
+	}
+
+	/**
+	 * @return the recorder of an effect, see {@link Effect#getId()}.
+	 */
+	public Recorder getRecorder(String effectId) {
+		Recorder recorder = recorders.get(effectId);
+		if (recorder == null) {
+			recorder = new Recorder(effectId, frameMicros);
+			recorders.put(effectId, recorder);
+		}
+		return recorder;
+	}
+
+	public void reset() {
+		for (Recorder recorder : recorders.values()) {
+			recorder.reset();
+		}
+	}
+
+	/**
+	 * @return one line per effect, for the debug overlay and the log.
+	 */
+	public String dump() {
+		StringBuilder text = new StringBuilder();
+		for (Recorder recorder : recorders.values()) {
+			if (text.length() > 0) {
+				text.append('\n');
+			}
+			text.append(recorder);
+		}
+		return text.toString();
+	}
+
+	/**
+	 * Export the statistics as comma separated values, one row per effect,
+	 * times in microseconds.
+	 */
+	public void export(File file) throws IOException {
+		Writer writer = new FileWriter(file);
+		try {
+			writer.write("effect,transitions,frames,dropped,interval_p50,interval_p95,interval_p99,interval_max,draw_p50,draw_p95,draw_p99,draw_max\n");
+			for (Recorder recorder : recorders.values()) {
+				Histogram intervals = recorder.getIntervals();
+				Histogram drawTimes = recorder.getDrawTimes();
+				writer.write(recorder.getEffectId() + "," + recorder.getTransitions() + "," + drawTimes.getCount() + "," + recorder.getDroppedFrames()
+						+ "," + intervals.getValueAtPercentile(50) + "," + intervals.getValueAtPercentile(95) + "," + intervals.getValueAtPercentile(99)
+						+ "," + intervals.getMax() + "," + drawTimes.getValueAtPercentile(50) + "," + drawTimes.getValueAtPercentile(95) + ","
+						+ drawTimes.getValueAtPercentile(99) + "," + drawTimes.getMax() + "\n");
+			}
+		} finally {
+			writer.close();
+		}
+	}
+
+	private static String percentiles(Histogram histogram) {
+		return "p50=" + millis(histogram.getValueAtPercentile(50)) + " p95=" + millis(histogram.getValueAtPercentile(95)) + " p99="
+				+ millis(histogram.getValueAtPercentile(99)) + "ms";
+	}
+
+	private static String millis(long micros) {
+		return String.format(Locale.US, "%.1f", micros / 1000f);
+	}
+
+}
@@ -0,0 +1,68 @@
+/*
+ * Copyright (C) 2013 ENTERTAILION LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.entertailion.android.videowall.animation;
+
+import android.os.Handler;
+import android.os.SystemClock;
+
+/**
+ * A {@link FrameSource} for devices without a {@link android.view.Choreographer}
+ * which approximates frames with handler messages, at most one per frame
+ * interval of a 60Hz display.
+ */
+public class HandlerFrameSource implements FrameSource {
+
+	private static final long FRAME_MILLIS = 16;
+
+	private final Handler handler = new Handler();
+	private Callback callback;
+
+	private final Runnable frameRunnable = new Runnable() {
+
+		@Override
+		public void run() {
+			Callback frameCallback = callback;
+			callback = null;
+			if (frameCallback != null) {
+				frameCallback.doFrame(SystemClock.uptimeMillis());
+			}
+		}
+
+	};
+
+	@Override
+	public void postFrame(Callback callback, long delayMillis) {
+		handler.removeCallbacks(frameRunnable);
+		this.callback = callback;
+		// a frame asked for right away still waits for the next interval, so
+		// a callback which keeps asking does not flood the message queue
+		handler.postDelayed(frameRunnable, Math.max(FRAME_MILLIS, delayMillis));
+	}
+
+	@Override
+	public void removeFrame(Callback callback) {
+		if (this.callback == callback) {
+			handler.removeCallbacks(frameRunnable);
+			this.callback = null;
+		}
+	}
+
+	@Override
+	public long uptimeMillis() {
+		return SystemClock.uptimeMillis();
+	}
+
+}
@@ -17,14 +17,23 @@
 
 package com.entertailion.android.videowall.animation;
 
+import android.animation.Animator;
+import android.animation.AnimatorListenerAdapter;
+import android.animation.ValueAnimator;
+import android.animation.ValueAnimator.AnimatorUpdateListener;
 import android.content.Context;
+import android.graphics.Canvas;
 import android.graphics.drawable.Drawable;
+import android.os.SystemClock;
+import android.view.View;
 import android.view.animation.AccelerateInterpolator;
 import android.view.animation.Animation;
 import android.view.animation.Animation.AnimationListener;
 import android.widget.FrameLayout;
 import android.widget.ImageView;
 
+import com.entertailion.android.videowall.thumbnail.PooledBitmapDrawable;
+
 /**
  * A view which animates from one ImageView to another view using animation.
  */
@@ -33,11 +42,26 @@ public abstract class ImageAnimationView extends FrameLayout {
 	private static final String LOG_TAG = "ImageAnimationView";
 
 	public static final int DEFAULT_DURATION = 500;
+	// animator updates this close together belong to the same frame
+	private static final long SAME_FRAME_NANOS = 4000000;
 
 	protected final ImageView outImageView;
 	protected final ImageView inImageView;
 	protected final ImageAnimationListener listener;
 	protected Animation inAnimation, outAnimation;
+	protected final int width, height;
+
+	// the property animation engine, created by setPropertyAnimation()
+	private ValueAnimator inAnimator, outAnimator;
+
+	// the wall cell being animated, see setCell()
+	private int column = -1, row = -1;
+	private long startTime;
+
+	// measures the frames of the transitions, see setFrameRecorder()
+	private FrameStats.Recorder frameRecorder;
+	private boolean measuring;
+	private long lastFrameNanos;
 
 	/**
 	 * Create a view which performs an animation from one view to another.
@@ -56,6 +80,8 @@ public abstract class ImageAnimationView extends FrameLayout {
 		super(context);
 
 		this.listener = listener;
+		this.width = width;
+		this.height = height;
 
 		this.outImageView = new ImageView(context);
 		this.inImageView = new ImageView(context);
@@ -78,7 +104,7 @@ public abstract class ImageAnimationView extends FrameLayout {
 
 				@Override
 				public void onAnimationEnd(Animation animation) {
-					listener.onAnimationCompleted(ImageAnimationView.this);
+					onTransitionCompleted();
 				}
 
 				@Override
@@ -112,12 +138,44 @@ public abstract class ImageAnimationView extends FrameLayout {
 		return outAnimation;
 	}
 
+	/**
+	 * Remember the wall cell this view animates, so the listener knows which
+	 * cell completed.
+	 */
+	public void setCell(int column, int row) {
+		this.column = column;
+		this.row = row;
+	}
+
+	public int getColumn() {
+		return column;
+	}
+
+	public int getRow() {
+		return row;
+	}
+
 	public void setInDrawable(Drawable drawable) {
-		inImageView.setImageDrawable(drawable);
+		setDrawable(inImageView, drawable);
 	}
 
 	public void setOutDrawable(Drawable drawable) {
-		outImageView.setImageDrawable(drawable);
+		setDrawable(outImageView, drawable);
+	}
+
+	/**
+	 * Release the drawables held for the last animation.
+	 */
+	public void releaseDrawables() {
+		setDrawable(inImageView, null);
+		setDrawable(outImageView, null);
+	}
+
+	private static void setDrawable(ImageView imageView, Drawable drawable) {
+		Drawable previous = imageView.getDrawable();
+		PooledBitmapDrawable.retain(drawable);
+		imageView.setImageDrawable(drawable);
+		PooledBitmapDrawable.release(previous);
 	}
 
 	public void setDuration(int duration) {
@@ -130,7 +188,168 @@ public abstract class ImageAnimationView extends FrameLayout {
 		}
 	}
 
+	/**
+	 * Precompute the flip transformations at the given keyframes per second,
+	 * see {@link FlipAnimation#setKeyframeRate(int)}.
+	 */
+	public void setKeyframeRate(int keyframeRate) {
+		if (inAnimation instanceof FlipAnimation) {
+			((FlipAnimation) inAnimation).setKeyframeRate(keyframeRate);
+		}
+		if (outAnimation instanceof FlipAnimation) {
+			((FlipAnimation) outAnimation).setKeyframeRate(keyframeRate);
+		}
+	}
+
+	/**
+	 * Run the transitions with property animators on hardware layers instead
+	 * of view animations. The layers only exist while a transition runs.
+	 */
+	public void setPropertyAnimation(boolean enabled) {
+		if (!enabled) {
+			inAnimator = null;
+			outAnimator = null;
+			return;
+		}
+		if (inAnimator != null) {
+			return;
+		}
+		outAnimator = ValueAnimator.ofFloat(0, 1);
+		outAnimator.setInterpolator(new AccelerateInterpolator());
+		outAnimator.addUpdateListener(new AnimatorUpdateListener() {
+
+			@Override
+			public void onAnimationUpdate(ValueAnimator animator) {
+				long start = System.nanoTime();
+				applyOutFraction(outImageView, animator.getAnimatedFraction());
+				recordAnimatorFrame(start);
+			}
+
+		});
+		outAnimator.addListener(new AnimatorListenerAdapter() {
+
+			@Override
+			public void onAnimationEnd(Animator animator) {
+				outImageView.setLayerType(View.LAYER_TYPE_NONE, null);
+				if (inAnimation == null) {
+					onTransitionCompleted();
+				}
+			}
+
+		});
+		inAnimator = ValueAnimator.ofFloat(0, 1);
+		inAnimator.setInterpolator(new AccelerateInterpolator());
+		inAnimator.addUpdateListener(new AnimatorUpdateListener() {
+
+			@Override
+			public void onAnimationUpdate(ValueAnimator animator) {
+				long start = System.nanoTime();
+				applyInFraction(inImageView, animator.getAnimatedFraction());
+				recordAnimatorFrame(start);
+			}
+
+		});
+		inAnimator.addListener(new AnimatorListenerAdapter() {
+
+			@Override
+			public void onAnimationEnd(Animator animator) {
+				inImageView.setLayerType(View.LAYER_TYPE_NONE, null);
+				onTransitionCompleted();
+			}
+
+		});
+	}
+
+	/**
+	 * Apply the state of the outgoing view at a point of the property
+	 * animation. The default flips the view away.
+	 * 
+	 * @param fraction
+	 *            the interpolated fraction from 0 to 1.
+	 */
+	protected void applyOutFraction(View view, float fraction) {
+		view.setRotationY(90 * fraction);
+		float scale = FlipAnimation.ScaleUpDownEnum.SCALE_DOWN.getScale(FlipAnimation.SCALE_DEFAULT, fraction);
+		view.setScaleX(scale);
+		view.setScaleY(scale);
+	}
+
+	/**
+	 * Apply the state of the incoming view at a point of the property
+	 * animation. The default flips the view in.
+	 * 
+	 * @param fraction
+	 *            the interpolated fraction from 0 to 1.
+	 */
+	protected void applyInFraction(View view, float fraction) {
+		view.setRotationY(-90 + 90 * fraction);
+		float scale = FlipAnimation.ScaleUpDownEnum.SCALE_UP.getScale(FlipAnimation.SCALE_DEFAULT, fraction);
+		view.setScaleX(scale);
+		view.setScaleY(scale);
+	}
+
+	/**
+	 * Record the frames of the transitions, or stop recording them.
+	 * 
+	 * @param frameRecorder
+	 *            the recorder of this view's effect, or null.
+	 */
+	public void setFrameRecorder(FrameStats.Recorder frameRecorder) {
+		this.frameRecorder = frameRecorder;
+	}
+
+	@Override
+	protected void dispatchDraw(Canvas canvas) {
+		// the property animators change the display lists of the children
+		// without drawing this view again, so they record their own frames
+		if (!measuring || inAnimator != null) {
+			super.dispatchDraw(canvas);
+			return;
+		}
+		long start = System.nanoTime();
+		super.dispatchDraw(canvas);
+		frameRecorder.recordFrame(lastFrameNanos > 0 ? start - lastFrameNanos : -1, System.nanoTime() - start);
+		lastFrameNanos = start;
+	}
+
+	/**
+	 * Record a frame of the property animators. The draw time is the time
+	 * taken to update the view properties. Where the outgoing animator ends
+	 * and the incoming one starts both update in the same frame, which is
+	 * only recorded once.
+	 */
+	private void recordAnimatorFrame(long start) {
+		if (!measuring || (lastFrameNanos > 0 && start - lastFrameNanos < SAME_FRAME_NANOS)) {
+			return;
+		}
+		frameRecorder.recordFrame(lastFrameNanos > 0 ? start - lastFrameNanos : -1, System.nanoTime() - start);
+		lastFrameNanos = start;
+	}
+
+	private void onTransitionCompleted() {
+		if (measuring) {
+			measuring = false;
+			frameRecorder.recordTransition();
+		}
+		listener.onAnimationCompleted(this);
+	}
+
+	/**
+	 * @return when the last transition started, see
+	 *         {@link SystemClock#uptimeMillis()}.
+	 */
+	public long getStartTime() {
+		return startTime;
+	}
+
 	public void start() {
+		startTime = SystemClock.uptimeMillis();
+		measuring = frameRecorder != null;
+		lastFrameNanos = 0;
+		if (inAnimator != null) {
+			startAnimators();
+			return;
+		}
 		if (outAnimation != null) {
 			outImageView.startAnimation(outAnimation);
 		}
@@ -139,4 +358,29 @@ public abstract class ImageAnimationView extends FrameLayout {
 		}
 	}
 
+	/**
+	 * Run the transition with the property animators, taking the timing from
+	 * the view animations so both engines look the same.
+	 */
+	private void startAnimators() {
+		// put both views in their initial state before the first frame
+		applyOutFraction(outImageView, 0);
+		// without an in animation the incoming view is simply shown
+		applyInFraction(inImageView, inAnimation != null ? 0 : 1);
+		if (outAnimation != null) {
+			outImageView.setLayerType(View.LAYER_TYPE_HARDWARE, null);
+			outAnimator.setDuration(outAnimation.getDuration());
+			outAnimator.start();
+		}
+		if (inAnimation != null) {
+			inImageView.setLayerType(View.LAYER_TYPE_HARDWARE, null);
+			inAnimator.setDuration(inAnimation.getDuration());
+			inAnimator.setStartDelay(inAnimation.getStartOffset());
+			inAnimator.start();
+		} else if (outAnimation == null) {
+			// nothing to animate, the out animator completes otherwise
+			onTransitionCompleted();
+		}
+	}
+
 }
@@ -0,0 +1,154 @@
+/*
+ * Copyright (C) 2013 ENTERTAILION LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.entertailion.android.videowall.animation;
+
+import java.util.ArrayList;
+
+/**
+ * A pool of reusable {@link ImageAnimationView}s which lets several cells of
+ * the wall transition at once, up to a maximum number of concurrent
+ * transitions. Views are created on demand by a {@link Factory} and kept for
+ * the next transitions once their animation has completed.
+ * 
+ * All methods must be called on the UI thread.
+ */
+public class ImageAnimationViewPool {
+
+	/**
+	 * Creates the views of the pool and disposes of them.
+	 */
+	public interface Factory {
+
+		/**
+		 * @return a new view, already added to the view hierarchy.
+		 */
+		ImageAnimationView create();
+
+		/**
+		 * Remove a view which is no longer used from the view hierarchy.
+		 */
+		void destroy(ImageAnimationView view);
+
+	}
+
+	private final Factory factory;
+	private final int maxActive;
+	private final ArrayList<ImageAnimationView> idle = new ArrayList<ImageAnimationView>();
+	private final ArrayList<ImageAnimationView> active = new ArrayList<ImageAnimationView>();
+	private int duration = ImageAnimationView.DEFAULT_DURATION;
+
+	/**
+	 * @param maxActive
+	 *            the maximum number of transitions running at once.
+	 */
+	public ImageAnimationViewPool(Factory factory, int maxActive) {
+		this.factory = factory;
+		this.maxActive = Math.max(1, maxActive);
+	}
+
+	/**
+	 * Take a view for a new transition.
+	 * 
+	 * @return the view, or null if the maximum number of transitions are
+	 *         running.
+	 */
+	public ImageAnimationView acquire() {
+		if (isFull()) {
+			return null;
+		}
+		ImageAnimationView view;
+		if (idle.isEmpty()) {
+			view = factory.create();
+			view.setDuration(duration);
+		} else {
+			view = idle.remove(idle.size() - 1);
+		}
+		active.add(view);
+		return view;
+	}
+
+	/**
+	 * Return the view of a completed transition to the pool.
+	 * 
+	 * @return false if the view was not running a transition of this pool,
+	 *         e.g. because the pool has been cleared since.
+	 */
+	public boolean release(ImageAnimationView view) {
+		if (!active.remove(view)) {
+			return false;
+		}
+		idle.add(view);
+		return true;
+	}
+
+	public boolean isFull() {
+		return active.size() >= maxActive;
+	}
+
+	/**
+	 * @return the number of transitions running.
+	 */
+	public int getActiveCount() {
+		return active.size();
+	}
+
+	/**
+	 * @return the view of a running transition, in the order they started.
+	 */
+	public ImageAnimationView getActive(int index) {
+		return active.get(index);
+	}
+
+	public int getMaxActive() {
+		return maxActive;
+	}
+
+	public void setDuration(int duration) {
+		this.duration = duration;
+		for (ImageAnimationView view : idle) {
+			view.setDuration(duration);
+		}
+		for (ImageAnimationView view : active) {
+			view.setDuration(duration);
+		}
+	}
+
+	/**
+	 * Dispose of the views which are not running a transition, so the next
+	 * transitions use new views.
+	 */
+	public void trim() {
+		for (ImageAnimationView view : idle) {
+			view.releaseDrawables();
+			factory.destroy(view);
+		}
+		idle.clear();
+	}
+
+	/**
+	 * Dispose of every view, abandoning the running transitions. Views are
+	 * created again as they are needed.
+	 */
+	public void clear() {
+		for (ImageAnimationView view : active) {
+			view.releaseDrawables();
+			factory.destroy(view);
+		}
+		active.clear();
+		trim();
+	}
+
+}
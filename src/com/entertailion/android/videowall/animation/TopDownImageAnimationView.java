@@ -18,10 +18,14 @@
 package com.entertailion.android.videowall.animation;
 
 import android.content.Context;
+import android.view.View;
 import android.view.animation.AccelerateInterpolator;
 import android.view.animation.Animation;
 import android.view.animation.TranslateAnimation;
 
+import com.entertailion.android.videowall.R;
+import com.entertailion.android.videowall.utils.Analytics;
+
 /**
  * A view which animates from one ImageView to another view using animation.
  */
@@ -29,6 +33,16 @@ public class TopDownImageAnimationView extends ImageAnimationView {
 
 	private static final String LOG_TAG = "TopDownImageAnimationView";
 
+	// plain translations of views which barely overlap
+	public static final Effect EFFECT = new Effect("top/down", R.string.preferences_general_effect_top_down, Analytics.EFFECT_TOP_DOWN, new Effect.Factory() {
+
+		@Override
+		public ImageAnimationView create(Context context, ImageAnimationListener listener, int width, int height) {
+			return new TopDownImageAnimationView(context, listener, width, height);
+		}
+
+	}, Effect.CPU_LOW, false, 1);
+
 	/**
 	 * Create a view which performs an animation from one view to another.
 	 * 
@@ -60,6 +74,16 @@ public class TopDownImageAnimationView extends ImageAnimationView {
 		return outtoBottom;
 	}
 
+	@Override
+	protected void applyOutFraction(View view, float fraction) {
+		view.setTranslationY(height * fraction);
+	}
+
+	@Override
+	protected void applyInFraction(View view, float fraction) {
+		view.setTranslationY(-height * (1 - fraction));
+	}
+
 	/**
 	 * Override so that animations run at the same time and not delayed
 	 * 
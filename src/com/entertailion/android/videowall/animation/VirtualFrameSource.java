@@ -0,0 +1,83 @@
+/*
+ * Copyright (C) 2013 ENTERTAILION LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.entertailion.android.videowall.animation;
+
+/**
+ * A {@link FrameSource} with a clock of its own, which only moves when it is
+ * advanced. Frames fall on multiples of the frame interval, like vsync, so
+ * the cadence of a {@link FlipScheduler} can be checked on the JVM without a
+ * display or a message loop.
+ */
+public class VirtualFrameSource implements FrameSource {
+
+	private final long frameIntervalMillis;
+	private long now;
+	private Callback callback;
+	private long frameTime;
+	private long frameCount;
+
+	/**
+	 * @param frameIntervalMillis
+	 *            the time between two frames, e.g. 16 for 60 frames per
+	 *            second.
+	 */
+	public VirtualFrameSource(long frameIntervalMillis) {
+		this.frameIntervalMillis = Math.max(1, frameIntervalMillis);
+	}
+
+	@Override
+	public void postFrame(Callback callback, long delayMillis) {
+		this.callback = callback;
+		// the first frame after the delay, and never the current one
+		long due = Math.max(now + 1, now + delayMillis);
+		frameTime = (due + frameIntervalMillis - 1) / frameIntervalMillis * frameIntervalMillis;
+	}
+
+	@Override
+	public void removeFrame(Callback callback) {
+		if (this.callback == callback) {
+			this.callback = null;
+		}
+	}
+
+	@Override
+	public long uptimeMillis() {
+		return now;
+	}
+
+	/**
+	 * Move the clock forward, delivering the frames requested on the way.
+	 */
+	public void advance(long millis) {
+		long end = now + millis;
+		while (callback != null && frameTime <= end) {
+			Callback frameCallback = callback;
+			callback = null;
+			now = frameTime;
+			frameCount++;
+			frameCallback.doFrame(now);
+		}
+		now = end;
+	}
+
+	/**
+	 * @return the number of frames delivered.
+	 */
+	public long getFrameCount() {
+		return frameCount;
+	}
+
+}
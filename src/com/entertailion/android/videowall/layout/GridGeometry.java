@@ -0,0 +1,132 @@
+/*
+ * Copyright (C) 2013 ENTERTAILION LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.entertailion.android.videowall.layout;
+
+import java.util.Arrays;
+
+/**
+ * The bounds of the cells of the wall and how much of each is on screen,
+ * computed once per size into flat arrays indexed by cell. Columns are
+ * shifted right by a fraction of a cell per row to give the wall its diagonal
+ * offset, with an extra column at either side to cover the edges.
+ */
+public class GridGeometry {
+
+	public static final int OFF_SCREEN = 0;
+	public static final int PARTIALLY_VISIBLE = 1;
+	public static final int TOTALLY_VISIBLE = 2;
+
+	private int numberOfColumns;
+	private int numberOfRows;
+	private int numberOfCells;
+	private int[] left = new int[0];
+	private int[] top = new int[0];
+	private int[] right = new int[0];
+	private int[] bottom = new int[0];
+	private int[] visibility = new int[0];
+	private boolean[] holdsPlayer = new boolean[0];
+
+	/**
+	 * Compute the bounds of a grid of cells, ordered column by column.
+	 * 
+	 * @param playerWidth
+	 *            the width of the player anchored at the top left of a cell
+	 *            playing its video, which may span several cells.
+	 * @param playerHeight
+	 *            the height of the player.
+	 */
+	public void compute(int numberOfColumns, int numberOfRows, int imageWidth, int imageHeight, int interImagePadding, int playerWidth,
+			int playerHeight, int displayWidth, int displayHeight) {
+		this.numberOfColumns = numberOfColumns;
+		this.numberOfRows = numberOfRows;
+		numberOfCells = numberOfColumns * numberOfRows;
+		if (left.length < numberOfCells) {
+			left = Arrays.copyOf(left, numberOfCells);
+			top = Arrays.copyOf(top, numberOfCells);
+			right = Arrays.copyOf(right, numberOfCells);
+			bottom = Arrays.copyOf(bottom, numberOfCells);
+			visibility = Arrays.copyOf(visibility, numberOfCells);
+			holdsPlayer = Arrays.copyOf(holdsPlayer, numberOfCells);
+		}
+		int rowOffset = imageWidth / numberOfRows;
+		int elementIdx = 0;
+		for (int col = 0; col < numberOfColumns; col++) {
+			for (int row = 0; row < numberOfRows; row++) {
+				int x1 = (col - 1) * (imageWidth + interImagePadding) + row * rowOffset;
+				int y1 = row * (imageHeight + interImagePadding);
+				int x2 = x1 + imageWidth;
+				int y2 = y1 + imageHeight;
+				left[elementIdx] = x1;
+				top[elementIdx] = y1;
+				right[elementIdx] = x2;
+				bottom[elementIdx] = y2;
+				if (x1 >= 0 && y1 >= 0 && x2 <= displayWidth && y2 <= displayHeight) {
+					visibility[elementIdx] = TOTALLY_VISIBLE;
+				} else if (x2 > 0 && y2 > 0 && x1 < displayWidth && y1 < displayHeight) {
+					visibility[elementIdx] = PARTIALLY_VISIBLE;
+				} else {
+					visibility[elementIdx] = OFF_SCREEN;
+				}
+				holdsPlayer[elementIdx] = x1 >= 0 && y1 >= 0 && x1 + playerWidth <= displayWidth && y1 + playerHeight <= displayHeight;
+				elementIdx++;
+			}
+		}
+	}
+
+	public int getNumberOfColumns() {
+		return numberOfColumns;
+	}
+
+	public int getNumberOfRows() {
+		return numberOfRows;
+	}
+
+	public int getNumberOfCells() {
+		return numberOfCells;
+	}
+
+	public int getLeft(int elementIdx) {
+		return left[elementIdx];
+	}
+
+	public int getTop(int elementIdx) {
+		return top[elementIdx];
+	}
+
+	public int getRight(int elementIdx) {
+		return right[elementIdx];
+	}
+
+	public int getBottom(int elementIdx) {
+		return bottom[elementIdx];
+	}
+
+	/**
+	 * @return {@link #OFF_SCREEN}, {@link #PARTIALLY_VISIBLE} or
+	 *         {@link #TOTALLY_VISIBLE}.
+	 */
+	public int getVisibility(int elementIdx) {
+		return visibility[elementIdx];
+	}
+
+	/**
+	 * @return true if the player placed at the cell is totally on screen.
+	 */
+	public boolean canHoldPlayer(int elementIdx) {
+		return holdsPlayer[elementIdx];
+	}
+
+}
@@ -16,25 +16,36 @@
 
 package com.entertailion.android.videowall.layout;
 
-import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.List;
+import java.util.Locale;
 import java.util.Random;
 
 import android.content.Context;
+import android.graphics.Canvas;
 import android.graphics.Point;
+import android.graphics.Rect;
 import android.graphics.drawable.Drawable;
 import android.util.DisplayMetrics;
 import android.util.Log;
-import android.util.Pair;
 import android.view.Display;
 import android.view.View;
 import android.view.ViewGroup;
 import android.view.WindowManager;
 import android.widget.ImageView;
 
+import com.entertailion.android.videowall.thumbnail.PooledBitmapDrawable;
+import com.entertailion.android.videowall.utils.IntIndexSet;
+
 /**
  * A view which displays a grid of images.
+ * 
+ * By default every cell is an ImageView child. In canvas mode the view has no
+ * children and draws the cell images itself, invalidating only the cell which
+ * changed.
+ * 
+ * The wall is virtualized: cells which are entirely off screen get no view,
+ * are never picked and so never hold an image. The memory held by the wall
+ * stays that of one screen of thumbnails however many rows it has.
  */
 public class ImageWallView extends ViewGroup {
 
@@ -42,13 +53,39 @@ public class ImageWallView extends ViewGroup {
 
 	private final Context context;
 	private final Random random;
+	private final boolean canvasMode;
 
 	private final int imageHeight;
 	private final int imageWidth;
 	private final int interImagePadding;
+	private int playerWidth;
+	private int playerHeight;
 
+	// the state of every cell; images is only used when not in canvas mode
 	private ImageView[] images;
-	private List<Integer> unInitializedImages;
+	private Drawable[] drawables;
+	private boolean[] hidden;
+	// cells entirely under the player, which are neither drawn nor picked
+	private boolean[] covered;
+	private int playerCol = -1;
+	private int playerRow = -1;
+	private final GridGeometry geometry;
+	private final IntIndexSet unInitializedImages;
+
+	// the cells a flip can target, kept up to date on layout and as cells are
+	// hidden and shown so a target is picked without searching
+	private TileSelectionPolicy visibleImages;
+	private TileSelectionPolicy playerImages;
+	// number of images each cell has shown
+	private int[] refreshCounts;
+	// cells not loaded yet by load priority: totally visible cells first,
+	// then those partially on screen
+	private final IntIndexSet unInitializedTotallyVisibleImages;
+	private final IntIndexSet unInitializedPartiallyVisibleImages;
+	private final IntIndexSet unInitializedPlayerImages;
+
+	private final Rect clipBounds = new Rect();
+	private final Rect drawableBounds = new Rect();
 
 	private int numberOfColumns;
 	private int numberOfRows;
@@ -56,15 +93,38 @@ public class ImageWallView extends ViewGroup {
 	private int displayWidth, displayHeight;
 
 	public ImageWallView(Context context, int imageWidth, int imageHeight, int interImagePadding) {
+		this(context, imageWidth, imageHeight, interImagePadding, false);
+	}
+
+	/**
+	 * @param canvasMode
+	 *            draw the cells in {@link #onDraw} instead of using a child
+	 *            view per cell.
+	 */
+	public ImageWallView(Context context, int imageWidth, int imageHeight, int interImagePadding, boolean canvasMode) {
 		super(context);
 		this.context = context;
+		this.canvasMode = canvasMode;
 		random = new Random();
 
 		this.imageWidth = imageWidth;
 		this.imageHeight = imageHeight;
 		this.interImagePadding = interImagePadding;
+		this.playerWidth = imageWidth;
+		this.playerHeight = imageHeight;
 		this.images = new ImageView[0];
-		this.unInitializedImages = new ArrayList<Integer>();
+		this.drawables = new Drawable[0];
+		this.hidden = new boolean[0];
+		this.covered = new boolean[0];
+		this.geometry = new GridGeometry();
+		this.unInitializedImages = new IntIndexSet(0);
+		this.visibleImages = new RandomTileSelectionPolicy(random);
+		this.playerImages = new RandomTileSelectionPolicy(random);
+		this.refreshCounts = new int[0];
+		this.unInitializedTotallyVisibleImages = new IntIndexSet(0);
+		this.unInitializedPartiallyVisibleImages = new IntIndexSet(0);
+		this.unInitializedPlayerImages = new IntIndexSet(0);
+		setWillNotDraw(!canvasMode);
 
 		WindowManager wm = (WindowManager) context.getSystemService(Context.WINDOW_SERVICE);
 		Display display = wm.getDefaultDisplay();
@@ -74,6 +134,27 @@ public class ImageWallView extends ViewGroup {
 		displayHeight = size.y;
 		Log.d(LOG_TAG, "width=" + displayWidth);
 		Log.d(LOG_TAG, "height=" + displayHeight);
+		Log.d(LOG_TAG, "canvasMode=" + canvasMode);
+	}
+
+	/**
+	 * Set the size of the player shown at a cell playing its video, when it
+	 * is larger than a cell. Must be called before the view is laid out.
+	 */
+	public void setPlayerSize(int playerWidth, int playerHeight) {
+		this.playerWidth = Math.max(imageWidth, playerWidth);
+		this.playerHeight = Math.max(imageHeight, playerHeight);
+	}
+
+	/**
+	 * Set the policy which picks the cells to refresh once the wall is
+	 * filled, see {@link TileSelectionPolicies}. Must be called before the
+	 * view is laid out.
+	 */
+	public void setTileSelectionPolicy(String name) {
+		visibleImages = TileSelectionPolicies.create(name, random);
+		playerImages = TileSelectionPolicies.create(name, random);
+		Log.d(LOG_TAG, "tileSelectionPolicy=" + name);
 	}
 
 	@Override
@@ -93,21 +174,55 @@ public class ImageWallView extends ViewGroup {
 					+ " columns. Both values must be greater than zero.");
 		}
 
-		if (images.length < (numberOfColumns * numberOfRows)) {
-			images = Arrays.copyOf(images, numberOfColumns * numberOfRows);
+		int numberOfCells = numberOfColumns * numberOfRows;
+		if (drawables.length < numberOfCells) {
+			if (!canvasMode) {
+				images = Arrays.copyOf(images, numberOfCells);
+			}
+			drawables = Arrays.copyOf(drawables, numberOfCells);
+			hidden = Arrays.copyOf(hidden, numberOfCells);
+			covered = new boolean[numberOfCells];
+			unInitializedImages.ensureCapacity(numberOfCells);
+			refreshCounts = Arrays.copyOf(refreshCounts, numberOfCells);
+			unInitializedTotallyVisibleImages.ensureCapacity(numberOfCells);
+			unInitializedPartiallyVisibleImages.ensureCapacity(numberOfCells);
+			unInitializedPlayerImages.ensureCapacity(numberOfCells);
+		}
+		geometry.compute(numberOfColumns, numberOfRows, imageWidth, imageHeight, interImagePadding, playerWidth, playerHeight, displayWidth,
+				displayHeight);
+		visibleImages.reset(numberOfColumns, numberOfRows);
+		playerImages.reset(numberOfColumns, numberOfRows);
+		unInitializedTotallyVisibleImages.clear();
+		unInitializedPartiallyVisibleImages.clear();
+		unInitializedPlayerImages.clear();
+		computeCovered();
+
+		if (!canvasMode) {
+			removeAllViews();
 		}
-
-		removeAllViews();
 		for (int col = 0; col < numberOfColumns; col++) {
 			for (int row = 0; row < numberOfRows; row++) {
 				int elementIdx = getElementIdx(col, row);
-				if (images[elementIdx] == null) {
-					ImageView thumbnail = new ImageView(context);
-					thumbnail.setLayoutParams(new LayoutParams(imageWidth, imageHeight));
-					images[elementIdx] = thumbnail;
-					unInitializedImages.add(elementIdx);
+				boolean onScreen = geometry.getVisibility(elementIdx) != GridGeometry.OFF_SCREEN;
+				// the wall is filled once every cell on screen has an image
+				unInitializedImages.set(elementIdx, onScreen && drawables[elementIdx] == null);
+				// the statistics start over with the new layout
+				refreshCounts[elementIdx] = drawables[elementIdx] != null ? 1 : 0;
+				if (!onScreen) {
+					if (!canvasMode) {
+						images[elementIdx] = null;
+					}
+				} else if (!canvasMode) {
+					if (images[elementIdx] == null) {
+						ImageView thumbnail = new ImageView(context);
+						thumbnail.setLayoutParams(new LayoutParams(imageWidth, imageHeight));
+						thumbnail.setImageDrawable(drawables[elementIdx]);
+						thumbnail.setVisibility(hidden[elementIdx] || covered[elementIdx] ? View.INVISIBLE : View.VISIBLE);
+						images[elementIdx] = thumbnail;
+					}
+					addView(images[elementIdx]);
 				}
-				addView(images[elementIdx]);
+				updateTargets(elementIdx);
 			}
 		}
 	}
@@ -122,86 +237,264 @@ public class ImageWallView extends ViewGroup {
 
 	@Override
 	protected void onLayout(boolean changed, int left, int top, int right, int bottom) {
-		for (int col = 0; col < numberOfColumns; col++) {
-			for (int row = 0; row < numberOfRows; row++) {
-				int x = (col - 1) * (imageWidth + interImagePadding) + (row * (imageWidth / numberOfRows));
-				int y = row * (imageHeight + interImagePadding);
-				ImageView imageView = images[col * numberOfRows + row];
-				imageView.layout(x, y, x + imageWidth, y + imageHeight);
-				imageView.setTag(isTotallyVisible(x, y, x + imageWidth, y + imageHeight));
+		if (canvasMode) {
+			return;
+		}
+		int numberOfCells = geometry.getNumberOfCells();
+		for (int elementIdx = 0; elementIdx < numberOfCells; elementIdx++) {
+			if (images[elementIdx] == null) {
+				continue;
 			}
+			images[elementIdx].layout(geometry.getLeft(elementIdx), geometry.getTop(elementIdx), geometry.getRight(elementIdx),
+					geometry.getBottom(elementIdx));
+		}
+	}
+
+	@Override
+	protected void onDraw(Canvas canvas) {
+		if (!canvasMode) {
+			return;
+		}
+		if (!canvas.getClipBounds(clipBounds)) {
+			return;
+		}
+		int numberOfCells = geometry.getNumberOfCells();
+		for (int elementIdx = 0; elementIdx < numberOfCells; elementIdx++) {
+			Drawable drawable = drawables[elementIdx];
+			if (drawable == null || hidden[elementIdx] || covered[elementIdx] || geometry.getVisibility(elementIdx) == GridGeometry.OFF_SCREEN) {
+				continue;
+			}
+			int x = geometry.getLeft(elementIdx);
+			int y = geometry.getTop(elementIdx);
+			if (!clipBounds.intersects(x, y, geometry.getRight(elementIdx), geometry.getBottom(elementIdx))) {
+				continue;
+			}
+			// the drawable may be shown by the animation view at the same
+			// time, so leave its bounds as they were
+			drawable.copyBounds(drawableBounds);
+			drawable.setBounds(0, 0, imageWidth, imageHeight);
+			int saveCount = canvas.save();
+			canvas.translate(x, y);
+			drawable.draw(canvas);
+			canvas.restoreToCount(saveCount);
+			drawable.setBounds(drawableBounds);
 		}
 	}
 
 	public int getXPosition(int col, int row) {
-		return images[getElementIdx(col, row)].getLeft();
+		return geometry.getLeft(getElementIdx(col, row));
 	}
 
 	public int getYPosition(int col, int row) {
-		return images[getElementIdx(col, row)].getTop();
+		return geometry.getTop(getElementIdx(col, row));
 	}
 
 	private int getElementIdx(int col, int row) {
 		return (col * numberOfRows) + row;
 	}
 
-	public ImageView hideImage(int col, int row) {
-		ImageView imageView = images[getElementIdx(col, row)];
-		imageView.setVisibility(View.INVISIBLE);
-		return imageView;
+	/**
+	 * @return the column of a cell returned by {@link #getNextLoadTarget}.
+	 */
+	public int getColumn(int elementIdx) {
+		return elementIdx / numberOfRows;
+	}
+
+	/**
+	 * @return the row of a cell returned by {@link #getNextLoadTarget}.
+	 */
+	public int getRow(int elementIdx) {
+		return elementIdx % numberOfRows;
+	}
+
+	public void hideImage(int col, int row) {
+		setHidden(getElementIdx(col, row), true);
 	}
 
 	public void showImage(int col, int row) {
-		images[getElementIdx(col, row)].setVisibility(View.VISIBLE);
+		setHidden(getElementIdx(col, row), false);
 	}
 
-	public void setImageDrawable(int col, int row, Drawable drawable) {
-		int elementIdx = getElementIdx(col, row);
-		// manually boxing elementIdx to avoid calling List.remove(int position)
-		// method overload
-		unInitializedImages.remove(new Integer(elementIdx));
-		images[elementIdx].setImageDrawable(drawable);
+	private void setHidden(int elementIdx, boolean isHidden) {
+		hidden[elementIdx] = isHidden;
+		updateVisibility(elementIdx);
 	}
 
-	public Drawable getImageDrawable(int col, int row) {
-		int elementIdx = getElementIdx(col, row);
-		return images[elementIdx].getDrawable();
+	/**
+	 * Hide the cells entirely covered by the player placed at a cell and keep
+	 * them from being picked, so no thumbnails are flipped in under it.
+	 */
+	public void coverPlayer(int col, int row) {
+		setPlayerCell(col, row);
+	}
+
+	/**
+	 * Show the cells covered by the player again.
+	 */
+	public void uncoverPlayer() {
+		setPlayerCell(-1, -1);
 	}
 
-	public Pair<Integer, Integer> getNextLoadTarget(boolean isVideo) {
-		int nextElement;
-		boolean totallyVisible = true;
-		do {
-			if (unInitializedImages.isEmpty()) {
-				nextElement = random.nextInt(images.length);
-			} else {
-				nextElement = unInitializedImages.get(random.nextInt(unInitializedImages.size()));
+	private void setPlayerCell(int col, int row) {
+		playerCol = col;
+		playerRow = row;
+		boolean[] previous = covered.clone();
+		computeCovered();
+		int numberOfCells = geometry.getNumberOfCells();
+		for (int elementIdx = 0; elementIdx < numberOfCells; elementIdx++) {
+			if (covered[elementIdx] != previous[elementIdx]) {
+				updateVisibility(elementIdx);
 			}
-			if (isVideo) {
-				totallyVisible = (Boolean) images[nextElement].getTag();
+		}
+	}
+
+	/**
+	 * Mark the cells which lie entirely within the bounds of the player. The
+	 * cells of lower rows are shifted right, so some of the cells the player
+	 * spans stay partly visible and keep being drawn.
+	 */
+	private void computeCovered() {
+		Arrays.fill(covered, false);
+		if (playerCol < 0 || playerCol >= numberOfColumns || playerRow < 0 || playerRow >= numberOfRows) {
+			return;
+		}
+		int anchor = getElementIdx(playerCol, playerRow);
+		int left = geometry.getLeft(anchor);
+		int top = geometry.getTop(anchor);
+		int right = left + playerWidth;
+		int bottom = top + playerHeight;
+		int numberOfCells = geometry.getNumberOfCells();
+		for (int elementIdx = 0; elementIdx < numberOfCells; elementIdx++) {
+			covered[elementIdx] = geometry.getLeft(elementIdx) >= left && geometry.getTop(elementIdx) >= top && geometry.getRight(elementIdx) <= right
+					&& geometry.getBottom(elementIdx) <= bottom;
+		}
+	}
+
+	private void updateVisibility(int elementIdx) {
+		if (canvasMode) {
+			invalidateCell(elementIdx);
+		} else if (images[elementIdx] != null) {
+			images[elementIdx].setVisibility(hidden[elementIdx] || covered[elementIdx] ? View.INVISIBLE : View.VISIBLE);
+		}
+		updateTargets(elementIdx);
+	}
+
+	private void invalidateCell(int elementIdx) {
+		invalidate(geometry.getLeft(elementIdx), geometry.getTop(elementIdx), geometry.getRight(elementIdx), geometry.getBottom(elementIdx));
+	}
+
+	/**
+	 * Update the target sets a cell belongs to after its visibility or
+	 * initialization changed.
+	 */
+	private void updateTargets(int elementIdx) {
+		boolean visible = !hidden[elementIdx] && !covered[elementIdx] && geometry.getVisibility(elementIdx) != GridGeometry.OFF_SCREEN;
+		boolean player = visible && geometry.canHoldPlayer(elementIdx);
+		boolean unInitialized = unInitializedImages.contains(elementIdx);
+		visibleImages.set(elementIdx, visible);
+		playerImages.set(elementIdx, player);
+		int visibility = geometry.getVisibility(elementIdx);
+		unInitializedTotallyVisibleImages.set(elementIdx, visible && unInitialized && visibility == GridGeometry.TOTALLY_VISIBLE);
+		unInitializedPartiallyVisibleImages.set(elementIdx, visible && unInitialized && visibility == GridGeometry.PARTIALLY_VISIBLE);
+		unInitializedPlayerImages.set(elementIdx, player && unInitialized);
+	}
+
+	public void setImageDrawable(int col, int row, Drawable drawable) {
+		int elementIdx = getElementIdx(col, row);
+		unInitializedImages.remove(elementIdx);
+		updateTargets(elementIdx);
+		visibleImages.onRefreshed(elementIdx);
+		playerImages.onRefreshed(elementIdx);
+		refreshCounts[elementIdx]++;
+		Drawable previous = drawables[elementIdx];
+		PooledBitmapDrawable.retain(drawable);
+		drawables[elementIdx] = drawable;
+		if (canvasMode) {
+			invalidateCell(elementIdx);
+		} else if (images[elementIdx] != null) {
+			images[elementIdx].setImageDrawable(drawable);
+		}
+		PooledBitmapDrawable.release(previous);
+	}
+
+	/**
+	 * Release the images of all cells, letting their bitmaps be reused once
+	 * the view has been removed.
+	 */
+	public void releaseImages() {
+		for (int i = 0; i < drawables.length; i++) {
+			Drawable previous = drawables[i];
+			drawables[i] = null;
+			if (!canvasMode && images[i] != null) {
+				images[i].setImageDrawable(null);
 			}
-		} while (images[nextElement].getVisibility() != View.VISIBLE || !totallyVisible);
+			PooledBitmapDrawable.release(previous);
+		}
+		invalidate();
+	}
 
-		int col = nextElement / numberOfRows;
-		int row = nextElement % numberOfRows;
-		return new Pair<Integer, Integer>(col, row);
+	public Drawable getImageDrawable(int col, int row) {
+		return drawables[getElementIdx(col, row)];
+	}
+
+	/**
+	 * Pick a visible cell to flip, preferring cells which have not been
+	 * loaded yet, totally visible ones first. Once the wall is filled the tile
+	 * selection policy decides.
+	 * 
+	 * @param isVideo
+	 *            only pick cells at which the player is totally on screen.
+	 * @return the cell, see {@link #getColumn} and {@link #getRow}, or -1 if
+	 *         no cell qualifies.
+	 */
+	public int getNextLoadTarget(boolean isVideo) {
+		if (isVideo) {
+			return unInitializedPlayerImages.isEmpty() ? playerImages.select() : unInitializedPlayerImages.random(random);
+		} else if (!unInitializedTotallyVisibleImages.isEmpty()) {
+			return unInitializedTotallyVisibleImages.random(random);
+		} else if (!unInitializedPartiallyVisibleImages.isEmpty()) {
+			return unInitializedPartiallyVisibleImages.random(random);
+		}
+		return visibleImages.select();
 	}
 
 	public boolean allImagesLoaded() {
 		return unInitializedImages.isEmpty();
 	}
 
-	private boolean isTotallyVisible(int x1, int y1, int x2, int y2) {
-		if (x1 < 0 || x2 < 0 || y1 < 0 || y2 < 0) {
-			return false;
-		}
-		if (x1 > displayWidth || x2 > displayWidth) {
-			return false;
-		}
-		if (y1 > displayHeight || y2 > displayHeight) {
-			return false;
+	/**
+	 * @return true once every totally visible cell has an image.
+	 */
+	public boolean visibleImagesLoaded() {
+		return unInitializedTotallyVisibleImages.isEmpty();
+	}
+
+	/**
+	 * Log how evenly the cells on screen have been refreshed: the share of
+	 * cells refreshed at least once after being filled, and Jain's fairness
+	 * index of the refresh counts (1 when all cells were refreshed equally
+	 * often).
+	 */
+	public void logStatistics() {
+		int cells = 0;
+		int coveredCount = 0;
+		double sum = 0;
+		double sumOfSquares = 0;
+		int numberOfCells = geometry.getNumberOfCells();
+		for (int elementIdx = 0; elementIdx < numberOfCells; elementIdx++) {
+			if (geometry.getVisibility(elementIdx) == GridGeometry.OFF_SCREEN) {
+				continue;
+			}
+			int refreshes = Math.max(0, refreshCounts[elementIdx] - 1);
+			cells++;
+			if (refreshes > 0) {
+				coveredCount++;
+			}
+			sum += refreshes;
+			sumOfSquares += (double) refreshes * refreshes;
 		}
-		return true;
+		double fairness = sumOfSquares > 0 ? sum * sum / (cells * sumOfSquares) : 1;
+		Log.d(LOG_TAG, "cells=" + cells + ", refreshed=" + coveredCount + ", refreshes=" + (long) sum + ", fairness=" + String.format(Locale.US, "%.2f", fairness));
 	}
 
 }
@@ -0,0 +1,129 @@
+/*
+ * Copyright (C) 2013 ENTERTAILION LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.entertailion.android.videowall.layout;
+
+import java.util.Arrays;
+
+/**
+ * Picks the eligible cell which was refreshed longest ago, so every cell is
+ * refreshed in turn. The eligible cells are kept in a binary min-heap ordered
+ * by refresh time with a position map, so all operations are O(log n) and
+ * selection is O(1).
+ */
+public class LeastRecentTileSelectionPolicy implements TileSelectionPolicy {
+
+	private static final int ABSENT = -1;
+
+	private int[] heap = new int[0];
+	private int[] positions = new int[0];
+	// refresh order of every cell, kept while a cell is not eligible
+	private long[] stamps = new long[0];
+	private int size;
+	private long clock;
+
+	@Override
+	public void reset(int numberOfColumns, int numberOfRows) {
+		int numberOfCells = numberOfColumns * numberOfRows;
+		if (positions.length < numberOfCells) {
+			heap = new int[numberOfCells];
+			positions = new int[numberOfCells];
+			stamps = new long[numberOfCells];
+		}
+		Arrays.fill(positions, ABSENT);
+		Arrays.fill(stamps, 0);
+		size = 0;
+		clock = 0;
+	}
+
+	@Override
+	public void set(int elementIdx, boolean eligible) {
+		int position = positions[elementIdx];
+		if (eligible && position == ABSENT) {
+			heap[size] = elementIdx;
+			positions[elementIdx] = size;
+			siftUp(size++);
+		} else if (!eligible && position != ABSENT) {
+			int last = heap[--size];
+			positions[elementIdx] = ABSENT;
+			if (position < size) {
+				heap[position] = last;
+				positions[last] = position;
+				siftDown(position);
+				siftUp(positions[last]);
+			}
+		}
+	}
+
+	@Override
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	@Override
+	public void onRefreshed(int elementIdx) {
+		stamps[elementIdx] = ++clock;
+		int position = positions[elementIdx];
+		if (position != ABSENT) {
+			siftDown(position);
+		}
+	}
+
+	@Override
+	public int select() {
+		return size > 0 ? heap[0] : ABSENT;
+	}
+
+	private boolean less(int a, int b) {
+		return stamps[a] < stamps[b] || (stamps[a] == stamps[b] && a < b);
+	}
+
+	private void siftUp(int position) {
+		int cell = heap[position];
+		while (position > 0) {
+			int parent = (position - 1) >>> 1;
+			if (!less(cell, heap[parent])) {
+				break;
+			}
+			move(heap[parent], position);
+			position = parent;
+		}
+		move(cell, position);
+	}
+
+	private void siftDown(int position) {
+		int cell = heap[position];
+		int half = size >>> 1;
+		while (position < half) {
+			int child = 2 * position + 1;
+			int right = child + 1;
+			if (right < size && less(heap[right], heap[child])) {
+				child = right;
+			}
+			if (!less(heap[child], cell)) {
+				break;
+			}
+			move(heap[child], position);
+			position = child;
+		}
+		move(cell, position);
+	}
+
+	private void move(int cell, int position) {
+		heap[position] = cell;
+		positions[cell] = position;
+	}
+
+}
@@ -0,0 +1,59 @@
+/*
+ * Copyright (C) 2013 ENTERTAILION LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.entertailion.android.videowall.layout;
+
+import java.util.Random;
+
+import com.entertailion.android.videowall.utils.IntIndexSet;
+
+/**
+ * Picks an eligible cell uniformly at random.
+ */
+public class RandomTileSelectionPolicy implements TileSelectionPolicy {
+
+	private final Random random;
+	private final IntIndexSet cells = new IntIndexSet(0);
+
+	public RandomTileSelectionPolicy(Random random) {
+		this.random = random;
+	}
+
+	@Override
+	public void reset(int numberOfColumns, int numberOfRows) {
+		cells.clear();
+		cells.ensureCapacity(numberOfColumns * numberOfRows);
+	}
+
+	@Override
+	public void set(int elementIdx, boolean eligible) {
+		cells.set(elementIdx, eligible);
+	}
+
+	@Override
+	public boolean isEmpty() {
+		return cells.isEmpty();
+	}
+
+	@Override
+	public void onRefreshed(int elementIdx) {
+	}
+
+	@Override
+	public int select() {
+		return cells.random(random);
+	}
+
+}
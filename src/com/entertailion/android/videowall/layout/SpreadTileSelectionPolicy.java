@@ -0,0 +1,102 @@
+/*
+ * Copyright (C) 2013 ENTERTAILION LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.entertailion.android.videowall.layout;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import com.entertailion.android.videowall.utils.IntIndexSet;
+
+/**
+ * Spreads refreshes over the wall: the grid is divided into 3x3 regions which
+ * are visited in an order that keeps consecutive picks far apart, picking a
+ * random eligible cell within each region. Selection is O(1).
+ */
+public class SpreadTileSelectionPolicy implements TileSelectionPolicy {
+
+	private static final int BLOCKS = 3;
+	// regions numbered column block * BLOCKS + row block: corners and edges
+	// alternate across the wall
+	private static final int[] ORDER = { 0, 8, 2, 6, 4, 1, 7, 3, 5 };
+
+	private final Random random;
+	private final IntIndexSet[] regions;
+	private int[] regionOf = new int[0];
+	private int size;
+	private int next;
+
+	public SpreadTileSelectionPolicy(Random random) {
+		this.random = random;
+		regions = new IntIndexSet[BLOCKS * BLOCKS];
+		for (int i = 0; i < regions.length; i++) {
+			regions[i] = new IntIndexSet(0);
+		}
+	}
+
+	@Override
+	public void reset(int numberOfColumns, int numberOfRows) {
+		int numberOfCells = numberOfColumns * numberOfRows;
+		if (regionOf.length < numberOfCells) {
+			regionOf = Arrays.copyOf(regionOf, numberOfCells);
+		}
+		for (IntIndexSet region : regions) {
+			region.clear();
+			region.ensureCapacity(numberOfCells);
+		}
+		for (int elementIdx = 0; elementIdx < numberOfCells; elementIdx++) {
+			int col = elementIdx / numberOfRows;
+			int row = elementIdx % numberOfRows;
+			regionOf[elementIdx] = (col * BLOCKS / numberOfColumns) * BLOCKS + row * BLOCKS / numberOfRows;
+		}
+		size = 0;
+		next = 0;
+	}
+
+	@Override
+	public void set(int elementIdx, boolean eligible) {
+		IntIndexSet region = regions[regionOf[elementIdx]];
+		if (eligible) {
+			if (region.add(elementIdx)) {
+				size++;
+			}
+		} else if (region.remove(elementIdx)) {
+			size--;
+		}
+	}
+
+	@Override
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	@Override
+	public void onRefreshed(int elementIdx) {
+	}
+
+	@Override
+	public int select() {
+		for (int i = 0; i < ORDER.length; i++) {
+			int index = (next + i) % ORDER.length;
+			IntIndexSet region = regions[ORDER[index]];
+			if (!region.isEmpty()) {
+				next = (index + 1) % ORDER.length;
+				return region.random(random);
+			}
+		}
+		return -1;
+	}
+
+}
@@ -0,0 +1,42 @@
+/*
+ * Copyright (C) 2013 ENTERTAILION LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.entertailion.android.videowall.layout;
+
+import java.util.Random;
+
+/**
+ * Creates the tile selection policy named by the tile_selection_policy
+ * setting in config.xml.
+ */
+public final class TileSelectionPolicies {
+
+	public static final String RANDOM = "random";
+	public static final String LEAST_RECENT = "least_recent";
+	public static final String SPREAD = "spread";
+
+	private TileSelectionPolicies() {
+	}
+
+	public static TileSelectionPolicy create(String name, Random random) {
+		if (LEAST_RECENT.equals(name)) {
+			return new LeastRecentTileSelectionPolicy();
+		} else if (SPREAD.equals(name)) {
+			return new SpreadTileSelectionPolicy(random);
+		}
+		return new RandomTileSelectionPolicy(random);
+	}
+
+}
@@ -0,0 +1,47 @@
+/*
+ * Copyright (C) 2013 ENTERTAILION LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.entertailion.android.videowall.layout;
+
+/**
+ * Decides which cell of a filled wall is refreshed next, out of the cells
+ * currently eligible. Cells are numbered column by column. Implementations
+ * must not allocate after {@link #reset}.
+ */
+public interface TileSelectionPolicy {
+
+	/**
+	 * Forget every cell and size for a grid.
+	 */
+	void reset(int numberOfColumns, int numberOfRows);
+
+	/**
+	 * Make a cell eligible or not for selection.
+	 */
+	void set(int elementIdx, boolean eligible);
+
+	boolean isEmpty();
+
+	/**
+	 * A cell was given a new image.
+	 */
+	void onRefreshed(int elementIdx);
+
+	/**
+	 * @return the next cell to refresh, or -1 if no cell is eligible.
+	 */
+	int select();
+
+}
@@ -0,0 +1,234 @@
+/*
+ * Copyright (C) 2013 ENTERTAILION LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.entertailion.android.videowall.playlist;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import android.content.Context;
+import android.util.Log;
+
+import com.entertailion.android.videowall.utils.Utils;
+
+/**
+ * The video IDs of a playlist by position, persisted in a small file per
+ * playlist so the wall can pick any video in O(1) without walking the
+ * playlist through the YouTube API first.
+ *
+ * The index is filled incrementally: positions are recorded as thumbnails are
+ * fetched, and the index becomes complete once the end of the playlist has
+ * been seen. All methods except the background save must be called on the UI
+ * thread.
+ */
+public class PlaylistIndex {
+
+	private static final String LOG_TAG = "PlaylistIndex";
+
+	private static final String DIRECTORY = "playlists";
+	private static final String SUFFIX = ".idx";
+	private static final int MAGIC = 0x56574958; // VWIX
+	private static final int VERSION = 1;
+
+	private static final ExecutorService saveExecutor = Executors.newSingleThreadExecutor();
+
+	private final File file;
+	private final String playlistId;
+	private String[] videoIds;
+	private int size;
+	private boolean complete;
+	private long refreshTime;
+	private boolean dirty;
+
+	private PlaylistIndex(File file, String playlistId) {
+		this.file = file;
+		this.playlistId = playlistId;
+		this.videoIds = new String[16];
+	}
+
+	/**
+	 * Load the index of a playlist, or create an empty one if it has not been
+	 * indexed before.
+	 */
+	public static PlaylistIndex load(Context context, String playlistId) {
+		File directory = new File(context.getFilesDir(), DIRECTORY);
+		PlaylistIndex index = new PlaylistIndex(new File(directory, Utils.clean(playlistId) + SUFFIX), playlistId);
+		if (index.file.exists()) {
+			try {
+				index.read();
+			} catch (IOException e) {
+				Log.w(LOG_TAG, "discarding index of " + playlistId, e);
+				index.size = 0;
+				index.complete = false;
+				index.refreshTime = 0;
+			}
+		}
+		Log.d(LOG_TAG, playlistId + ": size=" + index.size + ", complete=" + index.complete);
+		return index;
+	}
+
+	public String getPlaylistId() {
+		return playlistId;
+	}
+
+	/**
+	 * @return the number of positions known so far.
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * @return true once every position of the playlist is known.
+	 */
+	public boolean isComplete() {
+		return complete;
+	}
+
+	/**
+	 * @return true if the index is incomplete or was last completed more than
+	 *         the given time ago.
+	 */
+	public boolean needsRefresh(long maxAgeMillis) {
+		return !complete || System.currentTimeMillis() - refreshTime > maxAgeMillis;
+	}
+
+	/**
+	 * @return the video at a position, or null if it is not known yet.
+	 */
+	public String get(int position) {
+		if (position < 0 || position >= size) {
+			return null;
+		}
+		return videoIds[position];
+	}
+
+	/**
+	 * Record the video found at a position.
+	 */
+	public void set(int position, String videoId) {
+		if (position < 0 || videoId == null) {
+			return;
+		}
+		if (position >= videoIds.length) {
+			videoIds = Arrays.copyOf(videoIds, Math.max(position + 1, videoIds.length * 2));
+		}
+		if (!videoId.equals(videoIds[position])) {
+			videoIds[position] = videoId;
+			dirty = true;
+		}
+		if (position >= size) {
+			size = position + 1;
+			dirty = true;
+		}
+	}
+
+	/**
+	 * Record that the playlist ends after the given number of positions. This
+	 * completes the index and persists it.
+	 */
+	public void setEnd(int playlistSize) {
+		if (playlistSize < size) {
+			Arrays.fill(videoIds, playlistSize, size, null);
+		}
+		size = playlistSize;
+		complete = true;
+		refreshTime = System.currentTimeMillis();
+		dirty = true;
+		save();
+	}
+
+	/**
+	 * Persist the index in the background if it has changed.
+	 */
+	public void save() {
+		if (!dirty) {
+			return;
+		}
+		dirty = false;
+		final String[] snapshot = Arrays.copyOf(videoIds, size);
+		final boolean snapshotComplete = complete;
+		final long snapshotRefreshTime = refreshTime;
+		saveExecutor.execute(new Runnable() {
+
+			@Override
+			public void run() {
+				try {
+					write(snapshot, snapshotComplete, snapshotRefreshTime);
+				} catch (IOException e) {
+					Log.e(LOG_TAG, "save " + playlistId, e);
+				}
+			}
+
+		});
+	}
+
+	private void read() throws IOException {
+		DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+		try {
+			if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+				throw new IOException("unexpected header");
+			}
+			complete = in.readBoolean();
+			refreshTime = in.readLong();
+			int count = in.readInt();
+			if (count < 0) {
+				throw new IOException("unexpected size " + count);
+			}
+			videoIds = new String[Math.max(16, count)];
+			for (int i = 0; i < count; i++) {
+				String videoId = in.readUTF();
+				videoIds[i] = videoId.length() > 0 ? videoId : null;
+			}
+			size = count;
+		} finally {
+			in.close();
+		}
+	}
+
+	private void write(String[] snapshot, boolean snapshotComplete, long snapshotRefreshTime) throws IOException {
+		File directory = file.getParentFile();
+		if (!directory.exists() && !directory.mkdirs()) {
+			throw new IOException("cannot create " + directory);
+		}
+		File tmp = new File(directory, file.getName() + ".tmp");
+		DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmp)));
+		try {
+			out.writeInt(MAGIC);
+			out.writeInt(VERSION);
+			out.writeBoolean(snapshotComplete);
+			out.writeLong(snapshotRefreshTime);
+			out.writeInt(snapshot.length);
+			for (String videoId : snapshot) {
+				out.writeUTF(videoId != null ? videoId : "");
+			}
+		} finally {
+			out.close();
+		}
+		if (!tmp.renameTo(file)) {
+			throw new IOException("cannot rename " + tmp);
+		}
+	}
+
+}
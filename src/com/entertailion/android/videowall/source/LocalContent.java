@@ -0,0 +1,117 @@
+/*
+ * Copyright (C) 2013 ENTERTAILION LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.entertailion.android.videowall.source;
+
+import java.io.File;
+import java.io.FileFilter;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+
+import com.entertailion.android.videowall.utils.Utils;
+
+/**
+ * Content stored in a local directory with one subdirectory per playlist. Each
+ * image file in a playlist directory is the thumbnail of a video whose ID is
+ * the file name without its extension; files are in playlist order when
+ * sorted by name.
+ *
+ * This class is thread-safe.
+ */
+class LocalContent {
+
+	private static final FileFilter IMAGE_FILTER = new FileFilter() {
+
+		@Override
+		public boolean accept(File file) {
+			String name = file.getName().toLowerCase();
+			return file.isFile() && (name.endsWith(".jpg") || name.endsWith(".jpeg") || name.endsWith(".png"));
+		}
+
+	};
+
+	private static final Comparator<File> NAME_ORDER = new Comparator<File>() {
+
+		@Override
+		public int compare(File lhs, File rhs) {
+			return lhs.getName().compareTo(rhs.getName());
+		}
+
+	};
+
+	private final File directory;
+	private final Map<String, File[]> playlists = new HashMap<String, File[]>();
+	private final Map<String, File> videos = new HashMap<String, File>();
+
+	LocalContent(File directory) {
+		this.directory = directory;
+	}
+
+	File getDirectory() {
+		return directory;
+	}
+
+	boolean exists() {
+		return directory != null && directory.isDirectory();
+	}
+
+	/**
+	 * @return the thumbnails of a playlist in playlist order.
+	 */
+	synchronized File[] getThumbnails(String playlistId) {
+		File[] files = playlists.get(playlistId);
+		if (files == null) {
+			files = new File(directory, Utils.clean(playlistId)).listFiles(IMAGE_FILTER);
+			if (files == null) {
+				files = new File[0];
+			}
+			Arrays.sort(files, NAME_ORDER);
+			for (File file : files) {
+				videos.put(getVideoId(file), file);
+			}
+			playlists.put(playlistId, files);
+		}
+		return files;
+	}
+
+	/**
+	 * @return the thumbnail of a video in any playlist, or null if there is
+	 *         none.
+	 */
+	synchronized File findThumbnail(String videoId) {
+		File file = videos.get(videoId);
+		if (file == null && videoId != null) {
+			File[] subdirectories = directory.listFiles();
+			if (subdirectories != null) {
+				for (File subdirectory : subdirectories) {
+					if (subdirectory.isDirectory()) {
+						getThumbnails(subdirectory.getName());
+					}
+				}
+			}
+			file = videos.get(videoId);
+		}
+		return file;
+	}
+
+	static String getVideoId(File file) {
+		String name = file.getName();
+		int extension = name.lastIndexOf('.');
+		return extension > 0 ? name.substring(0, extension) : name;
+	}
+
+}
@@ -0,0 +1,48 @@
+/*
+ * Copyright (C) 2013 ENTERTAILION LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.entertailion.android.videowall.source;
+
+import android.app.Activity;
+import android.app.Dialog;
+
+/**
+ * A {@link SourceError} of a local content source. It cannot be resolved by
+ * the user.
+ */
+class LocalSourceError implements SourceError {
+
+	private final String message;
+
+	LocalSourceError(String message) {
+		this.message = message;
+	}
+
+	@Override
+	public boolean isUserRecoverableError() {
+		return false;
+	}
+
+	@Override
+	public Dialog getErrorDialog(Activity activity, int requestCode) {
+		return null;
+	}
+
+	@Override
+	public String toString() {
+		return message;
+	}
+
+}
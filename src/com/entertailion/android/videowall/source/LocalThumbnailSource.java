@@ -0,0 +1,167 @@
+/*
+ * Copyright (C) 2013 ENTERTAILION LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.entertailion.android.videowall.source;
+
+import java.io.File;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import android.content.Context;
+import android.content.res.Resources;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.graphics.drawable.BitmapDrawable;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+
+/**
+ * Serves thumbnails from a local directory (see {@link LocalContent}) after a
+ * configurable latency, so the wall can be run and measured without network
+ * access.
+ */
+public class LocalThumbnailSource implements ThumbnailSource {
+
+	private static final ExecutorService decodeExecutor = Executors.newSingleThreadExecutor();
+
+	private final LocalContent content;
+	private final int latencyMillis;
+	private final Handler handler = new Handler(Looper.getMainLooper());
+
+	/**
+	 * @param directory
+	 *            The directory with a subdirectory of thumbnails per
+	 *            playlist.
+	 * @param latencyMillis
+	 *            The minimum time a thumbnail request takes.
+	 */
+	public LocalThumbnailSource(File directory, int latencyMillis) {
+		this.content = new LocalContent(directory);
+		this.latencyMillis = latencyMillis;
+	}
+
+	@Override
+	public void createLoader(final Context context, final OnInitializedListener listener) {
+		handler.post(new Runnable() {
+
+			@Override
+			public void run() {
+				if (content.exists()) {
+					listener.onInitializationSuccess(new Loader(context.getResources()));
+				} else {
+					listener.onInitializationFailure(new LocalSourceError("no content in " + content.getDirectory()));
+				}
+			}
+
+		});
+	}
+
+	private final class Loader implements ThumbnailLoader {
+
+		private final Resources resources;
+		private OnThumbnailLoadedListener listener;
+		// identifies the latest request; older results are dropped
+		private int request;
+		private boolean hasNext;
+		private boolean released;
+
+		Loader(Resources resources) {
+			this.resources = resources;
+		}
+
+		@Override
+		public void setOnThumbnailLoadedListener(OnThumbnailLoadedListener listener) {
+			this.listener = listener;
+		}
+
+		@Override
+		public void setPlaylist(String playlistId, int position) {
+			int id = ++request;
+			File[] files = content.getThumbnails(playlistId);
+			if (position < 0 || position >= files.length) {
+				fail(id, null, ErrorReason.END_OF_PLAYLIST);
+				return;
+			}
+			load(id, files[position], position < files.length - 1);
+		}
+
+		@Override
+		public void setVideo(String videoId) {
+			int id = ++request;
+			File file = content.findThumbnail(videoId);
+			if (file == null) {
+				fail(id, videoId, ErrorReason.NOT_FOUND);
+				return;
+			}
+			load(id, file, false);
+		}
+
+		@Override
+		public boolean hasNext() {
+			return hasNext;
+		}
+
+		@Override
+		public void release() {
+			released = true;
+			listener = null;
+		}
+
+		private void load(final int id, final File file, final boolean next) {
+			final long start = SystemClock.uptimeMillis();
+			decodeExecutor.execute(new Runnable() {
+
+				@Override
+				public void run() {
+					final Bitmap bitmap = BitmapFactory.decodeFile(file.getPath());
+					long delay = Math.max(0, start + latencyMillis - SystemClock.uptimeMillis());
+					handler.postDelayed(new Runnable() {
+
+						@Override
+						public void run() {
+							if (id != request || released || listener == null) {
+								return;
+							}
+							if (bitmap == null) {
+								listener.onThumbnailError(Loader.this, LocalContent.getVideoId(file), ErrorReason.INTERNAL_ERROR);
+								return;
+							}
+							hasNext = next;
+							listener.onThumbnailLoaded(Loader.this, LocalContent.getVideoId(file), new BitmapDrawable(resources, bitmap));
+						}
+
+					}, delay);
+				}
+
+			});
+		}
+
+		private void fail(final int id, final String videoId, final ErrorReason errorReason) {
+			handler.postDelayed(new Runnable() {
+
+				@Override
+				public void run() {
+					if (id == request && !released && listener != null) {
+						listener.onThumbnailError(Loader.this, videoId, errorReason);
+					}
+				}
+
+			}, latencyMillis);
+		}
+
+	}
+
+}
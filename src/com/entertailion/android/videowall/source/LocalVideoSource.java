@@ -0,0 +1,210 @@
+/*
+ * Copyright (C) 2013 ENTERTAILION LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.entertailion.android.videowall.source;
+
+import java.io.File;
+
+import android.app.Activity;
+import android.graphics.Color;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+import android.view.View;
+import android.view.ViewGroup;
+
+/**
+ * Fakes playback of the videos of a local directory (see {@link LocalContent}):
+ * cueing takes a configurable latency and every video plays for a fixed
+ * duration, while the player view stays blank.
+ */
+public class LocalVideoSource implements VideoSource {
+
+	private final LocalContent content;
+	private final int cueLatencyMillis;
+	private final int durationMillis;
+	private final Handler handler = new Handler(Looper.getMainLooper());
+	private ViewGroup container;
+	private View view;
+	private Player player;
+
+	/**
+	 * @param directory
+	 *            The directory with a subdirectory of thumbnails per
+	 *            playlist.
+	 * @param cueLatencyMillis
+	 *            The time it takes to cue a video.
+	 * @param durationMillis
+	 *            The playing time of every video.
+	 */
+	public LocalVideoSource(File directory, int cueLatencyMillis, int durationMillis) {
+		this.content = new LocalContent(directory);
+		this.cueLatencyMillis = cueLatencyMillis;
+		this.durationMillis = durationMillis;
+	}
+
+	@Override
+	public void attach(Activity activity, ViewGroup container) {
+		this.container = container;
+		view = new View(activity);
+		view.setBackgroundColor(Color.BLACK);
+		container.addView(view, ViewGroup.LayoutParams.MATCH_PARENT, ViewGroup.LayoutParams.MATCH_PARENT);
+	}
+
+	@Override
+	public void initialize(final OnInitializedListener listener) {
+		handler.post(new Runnable() {
+
+			@Override
+			public void run() {
+				if (content.exists()) {
+					player = new Player();
+					listener.onInitializationSuccess(player);
+				} else {
+					listener.onInitializationFailure(new LocalSourceError("no content in " + content.getDirectory()));
+				}
+			}
+
+		});
+	}
+
+	@Override
+	public void detach() {
+		if (player != null) {
+			player.release();
+			player = null;
+		}
+		if (view != null) {
+			container.removeView(view);
+			view = null;
+		}
+	}
+
+	private final class Player implements VideoPlayer {
+
+		private final Handler playerHandler = new Handler(Looper.getMainLooper());
+		private PlayerStateChangeListener listener;
+		private String cuedVideoId;
+		private boolean playing;
+		private int position;
+		private long startTime;
+
+		private final Runnable endRunnable = new Runnable() {
+
+			@Override
+			public void run() {
+				playing = false;
+				position = durationMillis;
+				if (listener != null) {
+					listener.onVideoEnded();
+				}
+			}
+
+		};
+
+		@Override
+		public void setPlayerStateChangeListener(PlayerStateChangeListener listener) {
+			this.listener = listener;
+		}
+
+		@Override
+		public void cueVideo(final String videoId) {
+			playerHandler.removeCallbacksAndMessages(null);
+			cuedVideoId = null;
+			playing = false;
+			position = 0;
+			if (listener != null) {
+				listener.onLoading();
+			}
+			playerHandler.postDelayed(new Runnable() {
+
+				@Override
+				public void run() {
+					if (listener == null) {
+						return;
+					}
+					if (content.findThumbnail(videoId) == null) {
+						listener.onError(ErrorReason.NOT_PLAYABLE);
+					} else {
+						cuedVideoId = videoId;
+						listener.onLoaded(videoId);
+					}
+				}
+
+			}, cueLatencyMillis);
+		}
+
+		@Override
+		public void play() {
+			if (cuedVideoId == null || playing || position >= durationMillis) {
+				return;
+			}
+			playing = true;
+			startTime = SystemClock.uptimeMillis();
+			if (position == 0) {
+				playerHandler.post(new Runnable() {
+
+					@Override
+					public void run() {
+						if (listener != null) {
+							listener.onVideoStarted();
+						}
+					}
+
+				});
+			}
+			playerHandler.postDelayed(endRunnable, durationMillis - position);
+		}
+
+		@Override
+		public void pause() {
+			if (!playing) {
+				return;
+			}
+			playing = false;
+			position = (int) Math.min(durationMillis, position + SystemClock.uptimeMillis() - startTime);
+			playerHandler.removeCallbacks(endRunnable);
+		}
+
+		@Override
+		public boolean isPlaying() {
+			return playing;
+		}
+
+		@Override
+		public int getDurationMillis() {
+			return cuedVideoId != null ? durationMillis : 0;
+		}
+
+		@Override
+		public void seekToMillis(int millis) {
+			position = Math.max(0, Math.min(durationMillis, millis));
+			if (playing) {
+				startTime = SystemClock.uptimeMillis();
+				playerHandler.removeCallbacks(endRunnable);
+				playerHandler.postDelayed(endRunnable, durationMillis - position);
+			}
+		}
+
+		@Override
+		public void release() {
+			playerHandler.removeCallbacksAndMessages(null);
+			listener = null;
+			playing = false;
+		}
+
+	}
+
+}
@@ -0,0 +1,38 @@
+/*
+ * Copyright (C) 2013 ENTERTAILION LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.entertailion.android.videowall.source;
+
+import android.app.Activity;
+import android.app.Dialog;
+
+/**
+ * Describes why a content source could not be initialized.
+ */
+public interface SourceError {
+
+	/**
+	 * @return true if the user can resolve the error, for example by
+	 *         installing or updating an app.
+	 */
+	boolean isUserRecoverableError();
+
+	/**
+	 * @return a dialog which lets the user resolve the error, or null if the
+	 *         error is not user recoverable.
+	 */
+	Dialog getErrorDialog(Activity activity, int requestCode);
+
+}
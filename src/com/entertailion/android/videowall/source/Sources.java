@@ -0,0 +1,71 @@
+/*
+ * Copyright (C) 2013 ENTERTAILION LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.entertailion.android.videowall.source;
+
+import java.io.File;
+
+import android.content.Context;
+import android.content.res.Resources;
+
+import com.entertailion.android.videowall.R;
+
+/**
+ * Creates the content sources selected by the content_source setting in
+ * config.xml: "youtube", or "local" to run the wall from a directory in the
+ * app's external files directory.
+ */
+public final class Sources {
+
+	public static final String YOUTUBE = "youtube";
+	public static final String LOCAL = "local";
+
+	private Sources() {
+	}
+
+	public static ThumbnailSource createThumbnailSource(Context context, String developerKey) {
+		Resources resources = context.getResources();
+		if (isLocal(context)) {
+			return new LocalThumbnailSource(getLocalDirectory(context), resources.getInteger(R.integer.local_thumbnail_latency_ms));
+		}
+		return new YouTubeThumbnailSource(developerKey);
+	}
+
+	public static VideoSource createVideoSource(Context context, String developerKey) {
+		Resources resources = context.getResources();
+		if (isLocal(context)) {
+			return new LocalVideoSource(getLocalDirectory(context), resources.getInteger(R.integer.local_cue_latency_ms),
+					resources.getInteger(R.integer.local_video_duration_ms));
+		}
+		return new YouTubeVideoSource(developerKey);
+	}
+
+	/**
+	 * @return true if the source can have more than one initialized player in
+	 *         an activity. The YouTube player API allows only one.
+	 */
+	public static boolean supportsMultiplePlayers(Context context) {
+		return isLocal(context);
+	}
+
+	public static boolean isLocal(Context context) {
+		return LOCAL.equals(context.getString(R.string.content_source));
+	}
+
+	private static File getLocalDirectory(Context context) {
+		return new File(context.getExternalFilesDir(null), context.getString(R.string.local_content_directory));
+	}
+
+}
@@ -0,0 +1,80 @@
+/*
+ * Copyright (C) 2013 ENTERTAILION LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.entertailion.android.videowall.source;
+
+import android.graphics.drawable.Drawable;
+
+/**
+ * Loads the thumbnails of playlist positions or individual videos, one request
+ * at a time. A new request supersedes the one in flight. Callbacks are
+ * delivered on the UI thread.
+ */
+public interface ThumbnailLoader {
+
+	/**
+	 * END_OF_PLAYLIST is only reported by sources which can tell that a
+	 * requested position lies past the end of the playlist.
+	 */
+	public enum ErrorReason {
+		NETWORK_ERROR, INTERNAL_ERROR, NOT_FOUND, END_OF_PLAYLIST, UNKNOWN
+	}
+
+	/**
+	 * Defines an interface to receive the result of a thumbnail request.
+	 */
+	public interface OnThumbnailLoadedListener {
+
+		/**
+		 * @param loader
+		 * @param videoId
+		 * @param drawable
+		 *            The thumbnail, owned by the loader and only valid until
+		 *            its next request.
+		 */
+		void onThumbnailLoaded(ThumbnailLoader loader, String videoId, Drawable drawable);
+
+		/**
+		 * @param loader
+		 * @param videoId
+		 *            The video which failed, or null if the loader does not
+		 *            know it.
+		 * @param errorReason
+		 */
+		void onThumbnailError(ThumbnailLoader loader, String videoId, ErrorReason errorReason);
+
+	}
+
+	void setOnThumbnailLoadedListener(OnThumbnailLoadedListener listener);
+
+	/**
+	 * Load the thumbnail of the video at a position of a playlist.
+	 */
+	void setPlaylist(String playlistId, int position);
+
+	/**
+	 * Load the thumbnail of a video.
+	 */
+	void setVideo(String videoId);
+
+	/**
+	 * @return true if the playlist of the last loaded thumbnail has more
+	 *         videos after it.
+	 */
+	boolean hasNext();
+
+	void release();
+
+}
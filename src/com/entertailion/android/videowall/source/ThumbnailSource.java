@@ -0,0 +1,42 @@
+/*
+ * Copyright (C) 2013 ENTERTAILION LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.entertailion.android.videowall.source;
+
+import android.content.Context;
+
+/**
+ * Creates the {@link ThumbnailLoader}s the wall fetches thumbnails with.
+ */
+public interface ThumbnailSource {
+
+	/**
+	 * Defines an interface to receive a newly created loader.
+	 */
+	public interface OnInitializedListener {
+
+		void onInitializationSuccess(ThumbnailLoader loader);
+
+		void onInitializationFailure(SourceError error);
+
+	}
+
+	/**
+	 * Create a loader. The listener is called on the UI thread once the loader
+	 * is ready or has failed to initialize.
+	 */
+	void createLoader(Context context, OnInitializedListener listener);
+
+}
@@ -0,0 +1,64 @@
+/*
+ * Copyright (C) 2013 ENTERTAILION LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.entertailion.android.videowall.source;
+
+/**
+ * Plays the videos of the wall in a view provided by its {@link VideoSource}.
+ * Callbacks are delivered on the UI thread.
+ */
+public interface VideoPlayer {
+
+	public enum ErrorReason {
+		NOT_PLAYABLE, NETWORK_ERROR, UNEXPECTED_SERVICE_DISCONNECTION, UNKNOWN
+	}
+
+	/**
+	 * Defines an interface to enable listening to player state changes.
+	 */
+	public interface PlayerStateChangeListener {
+
+		void onLoading();
+
+		void onLoaded(String videoId);
+
+		void onVideoStarted();
+
+		void onVideoEnded();
+
+		void onError(ErrorReason errorReason);
+
+	}
+
+	void setPlayerStateChangeListener(PlayerStateChangeListener listener);
+
+	/**
+	 * Load a video without starting playback.
+	 */
+	void cueVideo(String videoId);
+
+	void play();
+
+	void pause();
+
+	boolean isPlaying();
+
+	int getDurationMillis();
+
+	void seekToMillis(int millis);
+
+	void release();
+
+}
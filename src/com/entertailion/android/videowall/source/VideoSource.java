@@ -0,0 +1,53 @@
+/*
+ * Copyright (C) 2013 ENTERTAILION LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.entertailion.android.videowall.source;
+
+import android.app.Activity;
+import android.view.ViewGroup;
+
+/**
+ * Provides the {@link VideoPlayer} of the wall and the view it renders into.
+ * Each instance manages a single player.
+ */
+public interface VideoSource {
+
+	/**
+	 * Defines an interface to receive the initialized player.
+	 */
+	public interface OnInitializedListener {
+
+		void onInitializationSuccess(VideoPlayer player);
+
+		void onInitializationFailure(SourceError error);
+
+	}
+
+	/**
+	 * Add the player's view to a container. The container must have an ID.
+	 */
+	void attach(Activity activity, ViewGroup container);
+
+	/**
+	 * Initialize the attached player, or retry a failed initialization.
+	 */
+	void initialize(OnInitializedListener listener);
+
+	/**
+	 * Remove the player's view from its container and release the player.
+	 */
+	void detach();
+
+}
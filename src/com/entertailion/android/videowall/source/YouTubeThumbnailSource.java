@@ -0,0 +1,122 @@
+/*
+ * Copyright (C) 2013 ENTERTAILION LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.entertailion.android.videowall.source;
+
+import android.content.Context;
+import android.graphics.drawable.Drawable;
+
+import com.google.android.youtube.player.YouTubeInitializationResult;
+import com.google.android.youtube.player.YouTubeThumbnailLoader;
+import com.google.android.youtube.player.YouTubeThumbnailView;
+
+/**
+ * Loads thumbnails with the YouTube thumbnail API. Every loader owns an
+ * off-screen {@link YouTubeThumbnailView}.
+ */
+public class YouTubeThumbnailSource implements ThumbnailSource {
+
+	private final String developerKey;
+
+	public YouTubeThumbnailSource(String developerKey) {
+		this.developerKey = developerKey;
+	}
+
+	@Override
+	public void createLoader(Context context, final OnInitializedListener listener) {
+		YouTubeThumbnailView view = new YouTubeThumbnailView(context);
+		view.initialize(developerKey, new YouTubeThumbnailView.OnInitializedListener() {
+
+			@Override
+			public void onInitializationSuccess(YouTubeThumbnailView thumbnailView, YouTubeThumbnailLoader thumbnailLoader) {
+				listener.onInitializationSuccess(new Loader(thumbnailLoader));
+			}
+
+			@Override
+			public void onInitializationFailure(YouTubeThumbnailView thumbnailView, YouTubeInitializationResult errorReason) {
+				listener.onInitializationFailure(new YouTubeSourceError(errorReason));
+			}
+
+		});
+	}
+
+	private static final class Loader implements ThumbnailLoader, YouTubeThumbnailLoader.OnThumbnailLoadedListener {
+
+		private final YouTubeThumbnailLoader loader;
+		private OnThumbnailLoadedListener listener;
+		// the video of the request in flight, null for playlist positions
+		private String videoId;
+
+		Loader(YouTubeThumbnailLoader loader) {
+			this.loader = loader;
+			loader.setOnThumbnailLoadedListener(this);
+		}
+
+		@Override
+		public void setOnThumbnailLoadedListener(OnThumbnailLoadedListener listener) {
+			this.listener = listener;
+		}
+
+		@Override
+		public void setPlaylist(String playlistId, int position) {
+			this.videoId = null;
+			loader.setPlaylist(playlistId, position);
+		}
+
+		@Override
+		public void setVideo(String videoId) {
+			this.videoId = videoId;
+			loader.setVideo(videoId);
+		}
+
+		@Override
+		public boolean hasNext() {
+			return loader.hasNext();
+		}
+
+		@Override
+		public void release() {
+			listener = null;
+			loader.setOnThumbnailLoadedListener(null);
+			loader.release();
+		}
+
+		@Override
+		public void onThumbnailLoaded(YouTubeThumbnailView thumbnail, String videoId) {
+			if (listener != null) {
+				Drawable drawable = thumbnail.getDrawable();
+				listener.onThumbnailLoaded(this, videoId, drawable);
+			}
+		}
+
+		@Override
+		public void onThumbnailError(YouTubeThumbnailView thumbnail, YouTubeThumbnailLoader.ErrorReason reason) {
+			if (listener != null) {
+				listener.onThumbnailError(this, videoId, convert(reason));
+			}
+		}
+
+		private static ErrorReason convert(YouTubeThumbnailLoader.ErrorReason reason) {
+			if (reason == YouTubeThumbnailLoader.ErrorReason.NETWORK_ERROR) {
+				return ErrorReason.NETWORK_ERROR;
+			} else if (reason == YouTubeThumbnailLoader.ErrorReason.INTERNAL_ERROR) {
+				return ErrorReason.INTERNAL_ERROR;
+			}
+			return ErrorReason.UNKNOWN;
+		}
+
+	}
+
+}
@@ -0,0 +1,182 @@
+/*
+ * Copyright (C) 2013 ENTERTAILION LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.entertailion.android.videowall.source;
+
+import android.app.Activity;
+import android.view.ViewGroup;
+
+import com.google.android.youtube.player.YouTubeInitializationResult;
+import com.google.android.youtube.player.YouTubePlayer;
+import com.google.android.youtube.player.YouTubePlayer.PlayerStyle;
+import com.google.android.youtube.player.YouTubePlayerFragment;
+
+/**
+ * Plays videos with a chromeless {@link YouTubePlayerFragment}.
+ */
+public class YouTubeVideoSource implements VideoSource {
+
+	private final String developerKey;
+	private Activity activity;
+	private YouTubePlayerFragment playerFragment;
+
+	public YouTubeVideoSource(String developerKey) {
+		this.developerKey = developerKey;
+	}
+
+	@Override
+	public void attach(Activity activity, ViewGroup container) {
+		this.activity = activity;
+		playerFragment = YouTubePlayerFragment.newInstance();
+		activity.getFragmentManager().beginTransaction().add(container.getId(), playerFragment).commit();
+	}
+
+	@Override
+	public void initialize(final OnInitializedListener listener) {
+		playerFragment.initialize(developerKey, new YouTubePlayer.OnInitializedListener() {
+
+			@Override
+			public void onInitializationSuccess(YouTubePlayer.Provider provider, YouTubePlayer player, boolean wasResumed) {
+				player.setPlayerStyle(PlayerStyle.CHROMELESS);
+				player.setFullscreenControlFlags(YouTubePlayer.FULLSCREEN_FLAG_CUSTOM_LAYOUT);
+				listener.onInitializationSuccess(new Player(player));
+			}
+
+			@Override
+			public void onInitializationFailure(YouTubePlayer.Provider provider, YouTubeInitializationResult errorReason) {
+				listener.onInitializationFailure(new YouTubeSourceError(errorReason));
+			}
+
+		});
+	}
+
+	@Override
+	public void detach() {
+		if (playerFragment != null) {
+			activity.getFragmentManager().beginTransaction().remove(playerFragment).commit();
+			playerFragment = null;
+		}
+	}
+
+	private static final class Player implements VideoPlayer, YouTubePlayer.PlayerStateChangeListener {
+
+		private final YouTubePlayer player;
+		private PlayerStateChangeListener listener;
+
+		Player(YouTubePlayer player) {
+			this.player = player;
+			player.setPlayerStateChangeListener(this);
+		}
+
+		@Override
+		public void setPlayerStateChangeListener(PlayerStateChangeListener listener) {
+			this.listener = listener;
+		}
+
+		@Override
+		public void cueVideo(String videoId) {
+			player.cueVideo(videoId);
+		}
+
+		@Override
+		public void play() {
+			player.play();
+		}
+
+		@Override
+		public void pause() {
+			player.pause();
+		}
+
+		@Override
+		public boolean isPlaying() {
+			return player.isPlaying();
+		}
+
+		@Override
+		public int getDurationMillis() {
+			return player.getDurationMillis();
+		}
+
+		@Override
+		public void seekToMillis(int millis) {
+			player.seekToMillis(millis);
+		}
+
+		@Override
+		public void release() {
+			listener = null;
+			player.release();
+		}
+
+		@Override
+		public void onLoading() {
+			if (listener != null) {
+				listener.onLoading();
+			}
+		}
+
+		@Override
+		public void onLoaded(String videoId) {
+			if (listener != null) {
+				listener.onLoaded(videoId);
+			}
+		}
+
+		@Override
+		public void onAdStarted() {
+		}
+
+		@Override
+		public void onVideoStarted() {
+			if (listener != null) {
+				listener.onVideoStarted();
+			}
+		}
+
+		@Override
+		public void onVideoEnded() {
+			if (listener != null) {
+				listener.onVideoEnded();
+			}
+		}
+
+		@Override
+		public void onError(YouTubePlayer.ErrorReason errorReason) {
+			if (listener != null) {
+				listener.onError(convert(errorReason));
+			}
+		}
+
+		private static ErrorReason convert(YouTubePlayer.ErrorReason reason) {
+			switch (reason) {
+			case UNEXPECTED_SERVICE_DISCONNECTION:
+				return ErrorReason.UNEXPECTED_SERVICE_DISCONNECTION;
+			case NETWORK_ERROR:
+				return ErrorReason.NETWORK_ERROR;
+			case EMBEDDING_DISABLED:
+			case BLOCKED_FOR_APP:
+			case NOT_PLAYABLE:
+			case EMPTY_PLAYLIST:
+			case USER_DECLINED_RESTRICTED_CONTENT:
+				return ErrorReason.NOT_PLAYABLE;
+			default:
+				return ErrorReason.UNKNOWN;
+			}
+		}
+
+	}
+
+}
@@ -0,0 +1,220 @@
+/*
+ * Copyright (C) 2013 ENTERTAILION LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.entertailion.android.videowall.state;
+
+import java.util.ArrayDeque;
+import java.util.EnumMap;
+import java.util.Set;
+
+import com.entertailion.android.videowall.utils.Histogram;
+
+/**
+ * A state machine driven by an explicit transition table. Events are queued
+ * and processed in order; an event fired while a transition is being handled
+ * (for example by a listener) is processed once that transition has
+ * completed. Events without a transition from the current state are ignored.
+ *
+ * The time spent in every state is recorded in a histogram per state. This
+ * class has no Android dependencies and is not thread-safe.
+ */
+public class StateMachine<S extends Enum<S>, E extends Enum<E>> {
+
+	private static final long MAX_TIME_IN_STATE_MILLIS = 10 * 60 * 1000;
+	private static final int HISTOGRAM_PRECISION = 5;
+
+	/**
+	 * Defines an interface to enable listening to transitions.
+	 */
+	public interface Listener<S, E> {
+
+		/**
+		 * @param from
+		 * @param event
+		 * @param to
+		 * @param timeInState
+		 *            The milliseconds spent in the state which was left.
+		 */
+		void onTransition(S from, E event, S to, long timeInState);
+
+	}
+
+	/**
+	 * A source of monotonic time in milliseconds.
+	 */
+	public interface Clock {
+
+		long uptimeMillis();
+
+	}
+
+	public static final Clock SYSTEM_CLOCK = new Clock() {
+
+		@Override
+		public long uptimeMillis() {
+			return System.nanoTime() / 1000000;
+		}
+
+	};
+
+	private final Class<E> eventType;
+	private final S[] states;
+	private final EnumMap<S, EnumMap<E, S>> table;
+	private final Histogram[] timeInState;
+	private final ArrayDeque<E> queue = new ArrayDeque<E>();
+	private final Clock clock;
+	private Listener<S, E> listener;
+
+	private S state;
+	private long enteredAt;
+	private boolean dispatching;
+	private long ignoredCount;
+
+	public StateMachine(Class<S> stateType, Class<E> eventType, S initialState, Clock clock) {
+		this.eventType = eventType;
+		this.table = new EnumMap<S, EnumMap<E, S>>(stateType);
+		this.clock = clock;
+		states = stateType.getEnumConstants();
+		timeInState = new Histogram[states.length];
+		for (int i = 0; i < states.length; i++) {
+			timeInState[i] = new Histogram(MAX_TIME_IN_STATE_MILLIS, HISTOGRAM_PRECISION);
+		}
+		state = initialState;
+		enteredAt = clock.uptimeMillis();
+	}
+
+	/**
+	 * Add a transition to the table.
+	 */
+	public void addTransition(S from, E event, S to) {
+		EnumMap<E, S> row = table.get(from);
+		if (row == null) {
+			row = new EnumMap<E, S>(eventType);
+			table.put(from, row);
+		}
+		row.put(event, to);
+	}
+
+	/**
+	 * Add a transition from each of the given states.
+	 */
+	public void addTransitions(E event, S to, Set<S> from) {
+		for (S state : from) {
+			addTransition(state, event, to);
+		}
+	}
+
+	public void setListener(Listener<S, E> listener) {
+		this.listener = listener;
+	}
+
+	public S getState() {
+		return state;
+	}
+
+	public boolean is(S state) {
+		return this.state == state;
+	}
+
+	/**
+	 * @return true if the event has a transition from the current state.
+	 */
+	public boolean canFire(E event) {
+		return getTarget(state, event) != null;
+	}
+
+	/**
+	 * Queue an event and process the queue unless a transition is already
+	 * being handled.
+	 */
+	public void fire(E event) {
+		queue.add(event);
+		if (dispatching) {
+			return;
+		}
+		dispatching = true;
+		try {
+			E next;
+			while ((next = queue.poll()) != null) {
+				dispatch(next);
+			}
+		} finally {
+			dispatching = false;
+		}
+	}
+
+	/**
+	 * @return the milliseconds spent in the current state so far.
+	 */
+	public long getTimeInState() {
+		return clock.uptimeMillis() - enteredAt;
+	}
+
+	public Histogram getTimeInStateHistogram(S state) {
+		return timeInState[state.ordinal()];
+	}
+
+	/**
+	 * @return the number of events which had no transition.
+	 */
+	public long getIgnoredCount() {
+		return ignoredCount;
+	}
+
+	public void resetStatistics() {
+		for (Histogram histogram : timeInState) {
+			histogram.reset();
+		}
+		ignoredCount = 0;
+	}
+
+	/**
+	 * @return one line per visited state with its time-in-state statistics.
+	 */
+	public String dump() {
+		StringBuilder builder = new StringBuilder();
+		for (S state : states) {
+			Histogram histogram = timeInState[state.ordinal()];
+			if (histogram.getCount() > 0) {
+				builder.append(state).append(": ").append(histogram).append('\n');
+			}
+		}
+		builder.append("ignored events: ").append(ignoredCount);
+		return builder.toString();
+	}
+
+	private S getTarget(S from, E event) {
+		EnumMap<E, S> row = table.get(from);
+		return row != null ? row.get(event) : null;
+	}
+
+	private void dispatch(E event) {
+		S from = state;
+		S to = getTarget(from, event);
+		if (to == null) {
+			ignoredCount++;
+			return;
+		}
+		long now = clock.uptimeMillis();
+		long time = now - enteredAt;
+		timeInState[from.ordinal()].record(time);
+		state = to;
+		enteredAt = now;
+		if (listener != null) {
+			listener.onTransition(from, event, to, time);
+		}
+	}
+
+}
@@ -0,0 +1,44 @@
+/*
+ * Copyright (C) 2013 ENTERTAILION LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.entertailion.android.videowall.state;
+
+/**
+ * The events which move the video wall between its {@link WallState}s.
+ */
+public enum WallEvent {
+	/** The thumbnail loaders and the player are ready. */
+	START,
+	/** Every cell of the wall shows a thumbnail. */
+	WALL_FILLED,
+	/** The player started loading the next video. */
+	CUE,
+	/** The player has loaded the next video. */
+	LOADED,
+	/** The cued video has been flipped in and starts playing. */
+	PLAY,
+	/** The playing video has ended. */
+	ENDED,
+	/** The playing video has ended and a cued standby player takes over. */
+	HANDOFF,
+	/** The player failed. */
+	ERROR,
+	/** The cell of the ended video is being flipped to a new thumbnail. */
+	FLIP_OUT,
+	/** The cell of the ended video shows a new thumbnail. */
+	FLIPPED_OUT,
+	/** The wall is rebuilt or has stopped. */
+	RESET,
+}
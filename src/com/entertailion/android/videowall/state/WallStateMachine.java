@@ -0,0 +1,79 @@
+/*
+ * Copyright (C) 2013 ENTERTAILION LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.entertailion.android.videowall.state;
+
+import static com.entertailion.android.videowall.state.WallEvent.CUE;
+import static com.entertailion.android.videowall.state.WallEvent.ENDED;
+import static com.entertailion.android.videowall.state.WallEvent.ERROR;
+import static com.entertailion.android.videowall.state.WallEvent.FLIPPED_OUT;
+import static com.entertailion.android.videowall.state.WallEvent.FLIP_OUT;
+import static com.entertailion.android.videowall.state.WallEvent.HANDOFF;
+import static com.entertailion.android.videowall.state.WallEvent.LOADED;
+import static com.entertailion.android.videowall.state.WallEvent.PLAY;
+import static com.entertailion.android.videowall.state.WallEvent.RESET;
+import static com.entertailion.android.videowall.state.WallEvent.START;
+import static com.entertailion.android.videowall.state.WallEvent.WALL_FILLED;
+import static com.entertailion.android.videowall.state.WallState.LOADING_THUMBNAILS;
+import static com.entertailion.android.videowall.state.WallState.UNINITIALIZED;
+import static com.entertailion.android.videowall.state.WallState.VIDEO_BEING_FLIPPED_OUT;
+import static com.entertailion.android.videowall.state.WallState.VIDEO_CUED;
+import static com.entertailion.android.videowall.state.WallState.VIDEO_ENDED;
+import static com.entertailion.android.videowall.state.WallState.VIDEO_FLIPPED_OUT;
+import static com.entertailion.android.videowall.state.WallState.VIDEO_LOADING;
+import static com.entertailion.android.videowall.state.WallState.VIDEO_PLAYING;
+
+import java.util.EnumSet;
+
+/**
+ * The transition table of the video wall:
+ * 
+ * <pre>
+ * UNINITIALIZED           --START-------> LOADING_THUMBNAILS
+ * LOADING_THUMBNAILS      --WALL_FILLED-> VIDEO_FLIPPED_OUT
+ * VIDEO_FLIPPED_OUT       --CUE---------> VIDEO_LOADING
+ * VIDEO_FLIPPED_OUT       --LOADED------> VIDEO_CUED (standby player already cued)
+ * VIDEO_LOADING           --LOADED------> VIDEO_CUED
+ * VIDEO_CUED              --PLAY--------> VIDEO_PLAYING
+ * VIDEO_PLAYING           --ENDED-------> VIDEO_ENDED
+ * VIDEO_PLAYING           --HANDOFF-----> VIDEO_CUED
+ * VIDEO_LOADING, VIDEO_CUED, VIDEO_PLAYING --ERROR--> VIDEO_ENDED
+ * VIDEO_ENDED             --FLIP_OUT----> VIDEO_BEING_FLIPPED_OUT
+ * VIDEO_BEING_FLIPPED_OUT --FLIPPED_OUT-> VIDEO_FLIPPED_OUT
+ * any                     --RESET-------> UNINITIALIZED
+ * </pre>
+ */
+public class WallStateMachine extends StateMachine<WallState, WallEvent> {
+
+	public WallStateMachine() {
+		this(SYSTEM_CLOCK);
+	}
+
+	public WallStateMachine(Clock clock) {
+		super(WallState.class, WallEvent.class, UNINITIALIZED, clock);
+		addTransition(UNINITIALIZED, START, LOADING_THUMBNAILS);
+		addTransition(LOADING_THUMBNAILS, WALL_FILLED, VIDEO_FLIPPED_OUT);
+		addTransition(VIDEO_FLIPPED_OUT, CUE, VIDEO_LOADING);
+		addTransitions(LOADED, VIDEO_CUED, EnumSet.of(VIDEO_FLIPPED_OUT, VIDEO_LOADING));
+		addTransition(VIDEO_CUED, PLAY, VIDEO_PLAYING);
+		addTransition(VIDEO_PLAYING, ENDED, VIDEO_ENDED);
+		addTransition(VIDEO_PLAYING, HANDOFF, VIDEO_CUED);
+		addTransitions(ERROR, VIDEO_ENDED, EnumSet.of(VIDEO_LOADING, VIDEO_CUED, VIDEO_PLAYING));
+		addTransition(VIDEO_ENDED, FLIP_OUT, VIDEO_BEING_FLIPPED_OUT);
+		addTransition(VIDEO_BEING_FLIPPED_OUT, FLIPPED_OUT, VIDEO_FLIPPED_OUT);
+		addTransitions(RESET, UNINITIALIZED, EnumSet.allOf(WallState.class));
+	}
+
+}
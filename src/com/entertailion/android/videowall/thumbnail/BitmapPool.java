@@ -0,0 +1,133 @@
+/*
+ * Copyright (C) 2013 ENTERTAILION LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.entertailion.android.videowall.thumbnail;
+
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import android.graphics.Bitmap;
+
+/**
+ * A pool of unused mutable bitmaps, bucketed by width, height and config, so
+ * that decoding a thumbnail can reuse the memory of an evicted one (see
+ * {@link android.graphics.BitmapFactory.Options#inBitmap}). The pool is
+ * bounded by the total byte size of the bitmaps it holds; the least recently
+ * used bucket is trimmed first.
+ *
+ * This class is thread-safe.
+ */
+public class BitmapPool {
+
+	private final long maxBytes;
+	// access ordered: iteration starts with the least recently used bucket
+	private final LinkedHashMap<Long, ArrayDeque<Bitmap>> buckets = new LinkedHashMap<Long, ArrayDeque<Bitmap>>(8, 0.75f, true);
+	private long size;
+
+	private long hitCount;
+	private long missCount;
+
+	public BitmapPool(long maxBytes) {
+		this.maxBytes = maxBytes;
+	}
+
+	/**
+	 * @return an unused bitmap of exactly the given size and config, or null
+	 *         if the pool has none. The content of the bitmap is undefined.
+	 */
+	public synchronized Bitmap get(int width, int height, Bitmap.Config config) {
+		ArrayDeque<Bitmap> bucket = buckets.get(getKey(width, height, config));
+		Bitmap bitmap = bucket != null ? bucket.pollLast() : null;
+		if (bitmap == null) {
+			missCount++;
+			return null;
+		}
+		size -= getByteCount(bitmap);
+		hitCount++;
+		return bitmap;
+	}
+
+	/**
+	 * Return a bitmap which is no longer displayed or cached to the pool. The
+	 * caller must not use the bitmap afterwards.
+	 */
+	public synchronized void put(Bitmap bitmap) {
+		if (bitmap == null || bitmap.isRecycled() || !bitmap.isMutable() || bitmap.getConfig() == null) {
+			return;
+		}
+		int byteCount = getByteCount(bitmap);
+		if (byteCount > maxBytes) {
+			bitmap.recycle();
+			return;
+		}
+		Long key = getKey(bitmap.getWidth(), bitmap.getHeight(), bitmap.getConfig());
+		ArrayDeque<Bitmap> bucket = buckets.get(key);
+		if (bucket == null) {
+			bucket = new ArrayDeque<Bitmap>();
+			buckets.put(key, bucket);
+		}
+		bucket.addLast(bitmap);
+		size += byteCount;
+		trimToSize();
+	}
+
+	public synchronized void clear() {
+		for (ArrayDeque<Bitmap> bucket : buckets.values()) {
+			for (Bitmap bitmap : bucket) {
+				bitmap.recycle();
+			}
+		}
+		buckets.clear();
+		size = 0;
+	}
+
+	public synchronized long getSize() {
+		return size;
+	}
+
+	public synchronized long getHitCount() {
+		return hitCount;
+	}
+
+	public synchronized long getMissCount() {
+		return missCount;
+	}
+
+	private void trimToSize() {
+		Iterator<Map.Entry<Long, ArrayDeque<Bitmap>>> i = buckets.entrySet().iterator();
+		while (size > maxBytes && i.hasNext()) {
+			ArrayDeque<Bitmap> bucket = i.next().getValue();
+			while (size > maxBytes && !bucket.isEmpty()) {
+				Bitmap bitmap = bucket.pollFirst();
+				size -= getByteCount(bitmap);
+				bitmap.recycle();
+			}
+			if (bucket.isEmpty()) {
+				i.remove();
+			}
+		}
+	}
+
+	private static Long getKey(int width, int height, Bitmap.Config config) {
+		return Long.valueOf(((long) width << 32) | ((long) height << 8) | config.ordinal());
+	}
+
+	static int getByteCount(Bitmap bitmap) {
+		return bitmap.getRowBytes() * bitmap.getHeight();
+	}
+
+}
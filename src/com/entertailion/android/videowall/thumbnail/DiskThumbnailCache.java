@@ -0,0 +1,357 @@
+/*
+ * Copyright (C) 2013 ENTERTAILION LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.entertailion.android.videowall.thumbnail;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import android.util.Log;
+
+import com.entertailion.android.videowall.utils.Utils;
+
+/**
+ * A size-capped store of encoded thumbnails on disk. Entries are evicted in
+ * least-recently-used order; the order survives restarts through a journal
+ * file which is replayed when the cache is opened.
+ *
+ * Journal lines are one of:
+ *
+ * <pre>
+ * CLEAN &lt;key&gt; &lt;bytes&gt;
+ * READ &lt;key&gt;
+ * REMOVE &lt;key&gt;
+ * </pre>
+ */
+public class DiskThumbnailCache {
+
+	private static final String LOG_TAG = "DiskThumbnailCache";
+
+	private static final String JOURNAL_FILE = "journal";
+	private static final String JOURNAL_FILE_TMP = "journal.tmp";
+	private static final String JOURNAL_HEADER = "videowall.thumbnails 1";
+	private static final String CLEAN = "CLEAN";
+	private static final String READ = "READ";
+	private static final String REMOVE = "REMOVE";
+	private static final String ENTRY_SUFFIX = ".thumb";
+	private static final String TMP_SUFFIX = ".tmp";
+
+	// rewrite the journal once it has this many redundant lines
+	private static final int REDUNDANT_OP_COMPACT_THRESHOLD = 500;
+
+	private final File directory;
+	private final long maxBytes;
+
+	// access ordered: iteration starts with the least recently used entry
+	private final LinkedHashMap<String, Long> entries = new LinkedHashMap<String, Long>(0, 0.75f, true);
+	private long size;
+	private int redundantOpCount;
+	private Writer journalWriter;
+
+	private long hitCount;
+	private long missCount;
+	private long evictionCount;
+
+	public DiskThumbnailCache(File directory, long maxBytes) {
+		this.directory = directory;
+		this.maxBytes = maxBytes;
+	}
+
+	/**
+	 * @return the encoded thumbnail, or null if it is not in the cache.
+	 */
+	public synchronized byte[] get(String key) {
+		if (!open()) {
+			return null;
+		}
+		key = Utils.clean(key);
+		Long length = entries.get(key);
+		if (length == null) {
+			missCount++;
+			return null;
+		}
+		File file = getEntryFile(key);
+		byte[] data = new byte[length.intValue()];
+		FileInputStream in = null;
+		try {
+			in = new FileInputStream(file);
+			int offset = 0;
+			while (offset < data.length) {
+				int read = in.read(data, offset, data.length - offset);
+				if (read < 0) {
+					throw new IOException("truncated entry " + key);
+				}
+				offset += read;
+			}
+		} catch (IOException e) {
+			Log.w(LOG_TAG, "get: " + key, e);
+			removeEntry(key);
+			missCount++;
+			return null;
+		} finally {
+			close(in);
+		}
+		hitCount++;
+		appendJournal(READ + " " + key);
+		return data;
+	}
+
+	public synchronized void put(String key, byte[] data) {
+		if (!open()) {
+			return;
+		}
+		key = Utils.clean(key);
+		File tmp = new File(directory, key + TMP_SUFFIX);
+		FileOutputStream out = null;
+		try {
+			out = new FileOutputStream(tmp);
+			out.write(data);
+		} catch (IOException e) {
+			Log.w(LOG_TAG, "put: " + key, e);
+			close(out);
+			tmp.delete();
+			return;
+		} finally {
+			close(out);
+		}
+		if (!tmp.renameTo(getEntryFile(key))) {
+			tmp.delete();
+			return;
+		}
+		Long previous = entries.put(key, Long.valueOf(data.length));
+		if (previous != null) {
+			size -= previous.longValue();
+			redundantOpCount++;
+		}
+		size += data.length;
+		appendJournal(CLEAN + " " + key + " " + data.length);
+		trimToSize();
+	}
+
+	public synchronized void remove(String key) {
+		if (open()) {
+			removeEntry(Utils.clean(key));
+		}
+	}
+
+	public synchronized boolean contains(String key) {
+		return open() && entries.containsKey(Utils.clean(key));
+	}
+
+	public synchronized void close() {
+		if (journalWriter != null) {
+			close(journalWriter);
+			journalWriter = null;
+		}
+	}
+
+	public synchronized long getSize() {
+		return size;
+	}
+
+	public synchronized int getCount() {
+		return entries.size();
+	}
+
+	public synchronized long getHitCount() {
+		return hitCount;
+	}
+
+	public synchronized long getMissCount() {
+		return missCount;
+	}
+
+	public synchronized long getEvictionCount() {
+		return evictionCount;
+	}
+
+	/**
+	 * Open the cache on first use by replaying the journal.
+	 */
+	private boolean open() {
+		if (journalWriter != null) {
+			return true;
+		}
+		if (!directory.exists() && !directory.mkdirs()) {
+			Log.e(LOG_TAG, "cannot create " + directory);
+			return false;
+		}
+		File journal = new File(directory, JOURNAL_FILE);
+		if (journal.exists()) {
+			try {
+				readJournal(journal);
+			} catch (IOException e) {
+				Log.w(LOG_TAG, "corrupt journal, clearing cache", e);
+				clearDirectory();
+			}
+		}
+		try {
+			if (journal.exists()) {
+				journalWriter = new BufferedWriter(new FileWriter(journal, true));
+			} else {
+				rebuildJournal();
+			}
+		} catch (IOException e) {
+			Log.e(LOG_TAG, "open", e);
+			return false;
+		}
+		trimToSize();
+		return true;
+	}
+
+	private void readJournal(File journal) throws IOException {
+		entries.clear();
+		size = 0;
+		redundantOpCount = 0;
+		BufferedReader reader = new BufferedReader(new FileReader(journal));
+		try {
+			if (!JOURNAL_HEADER.equals(reader.readLine())) {
+				throw new IOException("unexpected journal header");
+			}
+			String line;
+			while ((line = reader.readLine()) != null) {
+				String[] parts = line.split(" ");
+				if (parts.length == 3 && parts[0].equals(CLEAN)) {
+					Long length = Long.valueOf(parts[2]);
+					Long previous = entries.put(parts[1], length);
+					if (previous != null) {
+						size -= previous.longValue();
+						redundantOpCount++;
+					}
+					size += length.longValue();
+				} else if (parts.length == 2 && parts[0].equals(READ)) {
+					entries.get(parts[1]);
+					redundantOpCount++;
+				} else if (parts.length == 2 && parts[0].equals(REMOVE)) {
+					Long previous = entries.remove(parts[1]);
+					if (previous != null) {
+						size -= previous.longValue();
+					}
+					redundantOpCount += 2;
+				} else {
+					throw new IOException("unexpected journal line: " + line);
+				}
+			}
+		} catch (NumberFormatException e) {
+			throw new IOException("unexpected journal entry size");
+		} finally {
+			close(reader);
+		}
+
+		// drop entries whose files have gone missing
+		for (Iterator<Map.Entry<String, Long>> i = entries.entrySet().iterator(); i.hasNext();) {
+			Map.Entry<String, Long> entry = i.next();
+			if (!getEntryFile(entry.getKey()).exists()) {
+				size -= entry.getValue().longValue();
+				i.remove();
+			}
+		}
+	}
+
+	/**
+	 * Write a compact journal holding only the current entries in LRU order.
+	 */
+	private void rebuildJournal() throws IOException {
+		close();
+		File tmp = new File(directory, JOURNAL_FILE_TMP);
+		Writer writer = new BufferedWriter(new FileWriter(tmp));
+		try {
+			writer.write(JOURNAL_HEADER + "\n");
+			for (Map.Entry<String, Long> entry : entries.entrySet()) {
+				writer.write(CLEAN + " " + entry.getKey() + " " + entry.getValue() + "\n");
+			}
+		} finally {
+			close(writer);
+		}
+		File journal = new File(directory, JOURNAL_FILE);
+		if (!tmp.renameTo(journal)) {
+			throw new IOException("cannot rename " + tmp);
+		}
+		redundantOpCount = 0;
+		journalWriter = new BufferedWriter(new FileWriter(journal, true));
+	}
+
+	private void appendJournal(String line) {
+		if (journalWriter == null) {
+			return;
+		}
+		try {
+			journalWriter.write(line + "\n");
+			journalWriter.flush();
+			if (!line.startsWith(CLEAN)) {
+				redundantOpCount++;
+			}
+			if (redundantOpCount >= REDUNDANT_OP_COMPACT_THRESHOLD && redundantOpCount >= entries.size()) {
+				rebuildJournal();
+			}
+		} catch (IOException e) {
+			Log.w(LOG_TAG, "appendJournal", e);
+		}
+	}
+
+	private void trimToSize() {
+		while (size > maxBytes && !entries.isEmpty()) {
+			String eldest = entries.keySet().iterator().next();
+			removeEntry(eldest);
+			evictionCount++;
+		}
+	}
+
+	private void removeEntry(String key) {
+		Long length = entries.remove(key);
+		if (length != null) {
+			size -= length.longValue();
+			getEntryFile(key).delete();
+			appendJournal(REMOVE + " " + key);
+		}
+	}
+
+	private void clearDirectory() {
+		entries.clear();
+		size = 0;
+		File[] files = directory.listFiles();
+		if (files != null) {
+			for (File file : files) {
+				file.delete();
+			}
+		}
+	}
+
+	private File getEntryFile(String key) {
+		return new File(directory, key + ENTRY_SUFFIX);
+	}
+
+	private static void close(Closeable closeable) {
+		if (closeable != null) {
+			try {
+				closeable.close();
+			} catch (IOException e) {
+				// ignore
+			}
+		}
+	}
+
+}
@@ -0,0 +1,160 @@
+/*
+ * Copyright (C) 2013 ENTERTAILION LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.entertailion.android.videowall.thumbnail;
+
+import java.util.ArrayDeque;
+
+import android.util.Log;
+
+/**
+ * A bounded buffer of decoded thumbnails waiting to be flipped onto the wall.
+ * Thumbnails restored from the cache are served before fetched ones; both
+ * count against the capacity.
+ *
+ * The buffer also keeps track of the flip ticks it has served: a tick which
+ * finds the buffer empty is an underrun, i.e. a flip the wall had to skip.
+ *
+ * Buffered thumbnails are retained by the buffer; whoever polls one takes over
+ * that reference. All methods must be called on the UI thread.
+ */
+public class LookAheadBuffer {
+
+	private static final String LOG_TAG = "LookAheadBuffer";
+
+	private final int capacity;
+	private final ArrayDeque<Thumbnail> fetched;
+	private final ArrayDeque<Thumbnail> cached;
+
+	private long tickCount;
+	private long underrunCount;
+	private int consecutiveUnderruns;
+	private int longestUnderrun;
+
+	public LookAheadBuffer(int capacity) {
+		this.capacity = Math.max(1, capacity);
+		fetched = new ArrayDeque<Thumbnail>(this.capacity);
+		cached = new ArrayDeque<Thumbnail>();
+	}
+
+	/**
+	 * Add a fetched thumbnail, taking over the caller's reference.
+	 */
+	public void add(Thumbnail thumbnail) {
+		fetched.add(thumbnail);
+	}
+
+	/**
+	 * Add a thumbnail restored from the cache, taking over the caller's
+	 * reference. It is served ahead of fetched thumbnails.
+	 */
+	public void addCached(Thumbnail thumbnail) {
+		cached.add(thumbnail);
+	}
+
+	/**
+	 * @return the next thumbnail, or null if the buffer is empty.
+	 */
+	public Thumbnail poll() {
+		if (!cached.isEmpty()) {
+			return cached.poll();
+		}
+		return fetched.poll();
+	}
+
+	/**
+	 * @return the next thumbnail without removing it, or null if the buffer is
+	 *         empty.
+	 */
+	public Thumbnail peek() {
+		if (!cached.isEmpty()) {
+			return cached.peek();
+		}
+		return fetched.peek();
+	}
+
+	public boolean isEmpty() {
+		return cached.isEmpty() && fetched.isEmpty();
+	}
+
+	/**
+	 * @return the number of thumbnails buffered, restored and fetched.
+	 */
+	public int size() {
+		return cached.size() + fetched.size();
+	}
+
+	public int getCapacity() {
+		return capacity;
+	}
+
+	/**
+	 * Release every buffered thumbnail.
+	 */
+	public void clear() {
+		for (Thumbnail thumbnail : cached) {
+			PooledBitmapDrawable.release(thumbnail.getDrawable());
+		}
+		cached.clear();
+		for (Thumbnail thumbnail : fetched) {
+			PooledBitmapDrawable.release(thumbnail.getDrawable());
+		}
+		fetched.clear();
+	}
+
+	/**
+	 * Record a flip tick.
+	 *
+	 * @param served
+	 *            false if the tick found no thumbnail to flip in.
+	 * @return true if this tick started a new run of underruns.
+	 */
+	public boolean recordTick(boolean served) {
+		tickCount++;
+		if (served) {
+			consecutiveUnderruns = 0;
+			return false;
+		}
+		underrunCount++;
+		consecutiveUnderruns++;
+		if (consecutiveUnderruns > longestUnderrun) {
+			longestUnderrun = consecutiveUnderruns;
+		}
+		Log.w(LOG_TAG, "underrun: ticks=" + tickCount + ", underruns=" + underrunCount + ", consecutive=" + consecutiveUnderruns);
+		return consecutiveUnderruns == 1;
+	}
+
+	public long getTickCount() {
+		return tickCount;
+	}
+
+	public long getUnderrunCount() {
+		return underrunCount;
+	}
+
+	/**
+	 * @return the longest run of consecutive ticks which found the buffer
+	 *         empty.
+	 */
+	public int getLongestUnderrun() {
+		return longestUnderrun;
+	}
+
+	public void logStatistics() {
+		Log.d(LOG_TAG, "size=" + size() + "/" + capacity + ", ticks=" + tickCount + ", underruns=" + underrunCount + ", longest="
+				+ longestUnderrun);
+	}
+
+}
@@ -0,0 +1,248 @@
+/*
+ * Copyright (C) 2013 ENTERTAILION LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.entertailion.android.videowall.thumbnail;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import android.util.Log;
+
+/**
+ * Remembers videos whose thumbnail or playback has failed, so they are
+ * skipped without a request until their entry expires. The time to live of an
+ * entry doubles with every further failure of the same video, up to a
+ * maximum. Entries are persisted so deleted or private videos stay
+ * blacklisted across sessions.
+ *
+ * All methods except the background save must be called on the UI thread.
+ */
+public class NegativeCache {
+
+	private static final String LOG_TAG = "NegativeCache";
+
+	private static final int MAGIC = 0x56574e43; // VWNC
+	private static final int VERSION = 1;
+	private static final int MAX_ENTRIES = 2000;
+
+	private static final ExecutorService saveExecutor = Executors.newSingleThreadExecutor();
+
+	private static final class Entry {
+		int failures;
+		long expiresAt;
+	}
+
+	private final File file;
+	private final long baseTtl;
+	private final long maxTtl;
+	// insertion ordered: the oldest entries are dropped first
+	private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<String, Entry>();
+	private boolean dirty;
+
+	private long failureCount;
+	private long skipCount;
+
+	/**
+	 * @param file
+	 *            The file the entries are persisted in.
+	 * @param baseTtl
+	 *            The time to live in milliseconds after the first failure.
+	 * @param maxTtl
+	 *            The maximum time to live in milliseconds.
+	 */
+	public NegativeCache(File file, long baseTtl, long maxTtl) {
+		this.file = file;
+		this.baseTtl = baseTtl;
+		this.maxTtl = Math.max(baseTtl, maxTtl);
+		if (file.exists()) {
+			try {
+				read();
+			} catch (IOException e) {
+				Log.w(LOG_TAG, "discarding " + file, e);
+				entries.clear();
+			}
+		}
+	}
+
+	/**
+	 * @return true if the video has failed recently and should not be
+	 *         requested. Every positive answer counts as a skip.
+	 */
+	public boolean isBlacklisted(String videoId) {
+		Entry entry = entries.get(videoId);
+		if (entry == null) {
+			return false;
+		}
+		if (entry.expiresAt <= System.currentTimeMillis()) {
+			// keep the failure count so a repeat offender backs off further,
+			// but let the video be tried again
+			return false;
+		}
+		skipCount++;
+		return true;
+	}
+
+	/**
+	 * Record a failure of a video, extending its time to live.
+	 */
+	public void recordFailure(String videoId) {
+		if (videoId == null) {
+			return;
+		}
+		failureCount++;
+		Entry entry = entries.remove(videoId);
+		if (entry == null) {
+			entry = new Entry();
+		}
+		long ttl = baseTtl << Math.min(entry.failures, 20);
+		entry.failures++;
+		entry.expiresAt = System.currentTimeMillis() + Math.min(ttl, maxTtl);
+		entries.put(videoId, entry);
+		if (entries.size() > MAX_ENTRIES) {
+			Iterator<String> i = entries.keySet().iterator();
+			i.next();
+			i.remove();
+		}
+		dirty = true;
+		Log.d(LOG_TAG, "recordFailure: " + videoId + ", failures=" + entry.failures);
+	}
+
+	/**
+	 * Forget a video after it has loaded successfully.
+	 */
+	public void recordSuccess(String videoId) {
+		if (videoId != null && entries.remove(videoId) != null) {
+			dirty = true;
+		}
+	}
+
+	/**
+	 * @return the number of videos currently blacklisted.
+	 */
+	public int getBlacklistSize() {
+		long now = System.currentTimeMillis();
+		int size = 0;
+		for (Entry entry : entries.values()) {
+			if (entry.expiresAt > now) {
+				size++;
+			}
+		}
+		return size;
+	}
+
+	public long getFailureCount() {
+		return failureCount;
+	}
+
+	/**
+	 * @return the number of requests avoided because of the blacklist.
+	 */
+	public long getSkipCount() {
+		return skipCount;
+	}
+
+	/**
+	 * Persist the entries in the background if they have changed. Expired
+	 * entries are kept, since their failure count is still relevant.
+	 */
+	public void save() {
+		if (!dirty) {
+			return;
+		}
+		dirty = false;
+		final List<String> videoIds = new ArrayList<String>(entries.size());
+		final List<Entry> snapshot = new ArrayList<Entry>(entries.size());
+		for (Map.Entry<String, Entry> entry : entries.entrySet()) {
+			Entry copy = new Entry();
+			copy.failures = entry.getValue().failures;
+			copy.expiresAt = entry.getValue().expiresAt;
+			videoIds.add(entry.getKey());
+			snapshot.add(copy);
+		}
+		saveExecutor.execute(new Runnable() {
+
+			@Override
+			public void run() {
+				try {
+					write(videoIds, snapshot);
+				} catch (IOException e) {
+					Log.e(LOG_TAG, "save", e);
+				}
+			}
+
+		});
+	}
+
+	public void logStatistics() {
+		Log.d(LOG_TAG, "entries=" + entries.size() + ", failures=" + failureCount + ", skips=" + skipCount);
+	}
+
+	private void read() throws IOException {
+		DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+		try {
+			if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+				throw new IOException("unexpected header");
+			}
+			int count = in.readInt();
+			for (int i = 0; i < count; i++) {
+				String videoId = in.readUTF();
+				Entry entry = new Entry();
+				entry.failures = in.readInt();
+				entry.expiresAt = in.readLong();
+				entries.put(videoId, entry);
+			}
+		} finally {
+			in.close();
+		}
+	}
+
+	private void write(List<String> videoIds, List<Entry> snapshot) throws IOException {
+		File directory = file.getParentFile();
+		if (!directory.exists() && !directory.mkdirs()) {
+			throw new IOException("cannot create " + directory);
+		}
+		File tmp = new File(directory, file.getName() + ".tmp");
+		DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmp)));
+		try {
+			out.writeInt(MAGIC);
+			out.writeInt(VERSION);
+			out.writeInt(videoIds.size());
+			for (int i = 0; i < videoIds.size(); i++) {
+				out.writeUTF(videoIds.get(i));
+				out.writeInt(snapshot.get(i).failures);
+				out.writeLong(snapshot.get(i).expiresAt);
+			}
+		} finally {
+			out.close();
+		}
+		if (!tmp.renameTo(file)) {
+			throw new IOException("cannot rename " + tmp);
+		}
+	}
+
+}
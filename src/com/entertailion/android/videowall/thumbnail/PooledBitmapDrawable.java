@@ -0,0 +1,77 @@
+/*
+ * Copyright (C) 2013 ENTERTAILION LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.entertailion.android.videowall.thumbnail;
+
+import android.content.res.Resources;
+import android.graphics.Bitmap;
+import android.graphics.drawable.BitmapDrawable;
+import android.graphics.drawable.Drawable;
+
+/**
+ * A reference counted bitmap drawable. Every holder (the memory cache, a
+ * wall cell, an animation view, the look-ahead buffer) retains the drawable while
+ * it uses it; once the last holder has released it the bitmap is returned to
+ * the {@link BitmapPool} for reuse.
+ */
+public class PooledBitmapDrawable extends BitmapDrawable {
+
+	private final BitmapPool pool;
+	private int refCount;
+	private boolean pooled;
+
+	public PooledBitmapDrawable(Resources resources, Bitmap bitmap, BitmapPool pool) {
+		super(resources, bitmap);
+		this.pool = pool;
+	}
+
+	public synchronized void retain() {
+		refCount++;
+	}
+
+	public synchronized void release() {
+		if (--refCount <= 0 && !pooled) {
+			refCount = 0;
+			pooled = true;
+			pool.put(getBitmap());
+		}
+	}
+
+	/**
+	 * @return true while the bitmap has not been handed back to the pool.
+	 */
+	public synchronized boolean isValid() {
+		return !pooled && !getBitmap().isRecycled();
+	}
+
+	/**
+	 * Retain the drawable if it is pooled; other drawables are ignored.
+	 */
+	public static void retain(Drawable drawable) {
+		if (drawable instanceof PooledBitmapDrawable) {
+			((PooledBitmapDrawable) drawable).retain();
+		}
+	}
+
+	/**
+	 * Release the drawable if it is pooled; other drawables are ignored.
+	 */
+	public static void release(Drawable drawable) {
+		if (drawable instanceof PooledBitmapDrawable) {
+			((PooledBitmapDrawable) drawable).release();
+		}
+	}
+
+}
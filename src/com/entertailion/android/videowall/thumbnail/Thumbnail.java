@@ -0,0 +1,40 @@
+/*
+ * Copyright (C) 2013 ENTERTAILION LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.entertailion.android.videowall.thumbnail;
+
+import android.graphics.drawable.Drawable;
+
+/**
+ * Data structure for a loaded thumbnail and the video it belongs to.
+ */
+public class Thumbnail {
+	private final String videoId;
+	private final Drawable drawable;
+
+	public Thumbnail(String videoId, Drawable drawable) {
+		this.videoId = videoId;
+		this.drawable = drawable;
+	}
+
+	public String getVideoId() {
+		return videoId;
+	}
+
+	public Drawable getDrawable() {
+		return drawable;
+	}
+
+}
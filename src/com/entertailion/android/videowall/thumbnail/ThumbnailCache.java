@@ -0,0 +1,247 @@
+/*
+ * Copyright (C) 2013 ENTERTAILION LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.entertailion.android.videowall.thumbnail;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import android.graphics.Bitmap;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+import android.util.LruCache;
+
+/**
+ * Two-tier cache of thumbnails keyed by video ID: a byte-size-bounded memory
+ * LRU of decoded bitmaps backed by a {@link DiskThumbnailCache}. Disk access
+ * happens on a background thread; results are delivered on the UI thread.
+ *
+ * The memory tier holds a reference on each {@link PooledBitmapDrawable}, so
+ * an evicted thumbnail returns to the bitmap pool once nothing displays it.
+ */
+public class ThumbnailCache {
+
+	private static final String LOG_TAG = "ThumbnailCache";
+
+	private static final int JPEG_QUALITY = 90;
+
+	/**
+	 * Defines an interface to receive the result of a cache lookup.
+	 */
+	public interface Callback {
+
+		/**
+		 * Called on the UI thread with the cached thumbnail. The thumbnail is
+		 * only guaranteed to stay valid during the call unless the callback
+		 * retains it.
+		 *
+		 * @param videoId
+		 * @param drawable
+		 *            The thumbnail, or null if it is not cached.
+		 */
+		void onThumbnailCached(String videoId, PooledBitmapDrawable drawable);
+
+	}
+
+	private final LruCache<String, PooledBitmapDrawable> memoryCache;
+	private final DiskThumbnailCache diskCache;
+	private final ExecutorService diskExecutor;
+	private final Handler handler;
+	private volatile ThumbnailDecoder decoder;
+
+	/**
+	 * @param directory
+	 *            The directory of the disk cache.
+	 * @param memoryBytes
+	 *            The maximum size of the decoded bitmaps kept in memory.
+	 * @param diskBytes
+	 *            The maximum size of the encoded thumbnails kept on disk.
+	 */
+	public ThumbnailCache(File directory, int memoryBytes, long diskBytes) {
+		memoryCache = new LruCache<String, PooledBitmapDrawable>(memoryBytes) {
+
+			@Override
+			protected int sizeOf(String key, PooledBitmapDrawable drawable) {
+				return BitmapPool.getByteCount(drawable.getBitmap());
+			}
+
+			@Override
+			protected void entryRemoved(boolean evicted, String key, PooledBitmapDrawable oldValue, PooledBitmapDrawable newValue) {
+				if (oldValue != newValue) {
+					oldValue.release();
+				}
+			}
+
+		};
+		diskCache = new DiskThumbnailCache(directory, diskBytes);
+		diskExecutor = Executors.newSingleThreadExecutor();
+		handler = new Handler(Looper.getMainLooper());
+	}
+
+	/**
+	 * Set the decoder which produces thumbnails at the current cell size. The
+	 * memory tier is cleared when the cell size changes.
+	 */
+	public void setDecoder(ThumbnailDecoder decoder) {
+		ThumbnailDecoder previous = this.decoder;
+		this.decoder = decoder;
+		if (previous != null && (previous.getWidth() != decoder.getWidth() || previous.getHeight() != decoder.getHeight())) {
+			clearMemory();
+		}
+	}
+
+	/**
+	 * @return the thumbnail if it is in the memory cache, otherwise null. The
+	 *         thumbnail is retained for the caller, which must release it.
+	 */
+	public PooledBitmapDrawable getFromMemory(String videoId) {
+		// the lock of the cache keeps the entry from being evicted and pooled
+		// before it is retained
+		synchronized (memoryCache) {
+			PooledBitmapDrawable drawable = memoryCache.get(videoId);
+			if (drawable != null) {
+				drawable.retain();
+			}
+			return drawable;
+		}
+	}
+
+	/**
+	 * Look up a thumbnail in memory and then on disk. The callback is invoked
+	 * immediately for memory hits and later on the UI thread otherwise.
+	 */
+	public void get(final String videoId, final Callback callback) {
+		PooledBitmapDrawable drawable = getFromMemory(videoId);
+		if (drawable != null) {
+			// keep it valid until the callback has run
+			callback.onThumbnailCached(videoId, drawable);
+			drawable.release();
+			return;
+		}
+		diskExecutor.execute(new Runnable() {
+
+			@Override
+			public void run() {
+				PooledBitmapDrawable drawable = null;
+				byte[] data = diskCache.get(videoId);
+				ThumbnailDecoder decoder = ThumbnailCache.this.decoder;
+				if (data != null && decoder != null) {
+					drawable = decoder.decode(data);
+					if (drawable != null) {
+						drawable.retain();
+						memoryCache.put(videoId, drawable);
+						// keep it valid until the callback has run
+						drawable.retain();
+					} else {
+						diskCache.remove(videoId);
+					}
+				}
+				final PooledBitmapDrawable result = drawable;
+				handler.post(new Runnable() {
+
+					@Override
+					public void run() {
+						callback.onThumbnailCached(videoId, result);
+						PooledBitmapDrawable.release(result);
+					}
+
+				});
+			}
+
+		});
+	}
+
+	/**
+	 * Add a thumbnail to the memory cache and write it to disk in the
+	 * background.
+	 */
+	public void put(final String videoId, final PooledBitmapDrawable drawable) {
+		if (videoId == null || drawable == null) {
+			return;
+		}
+		drawable.retain();
+		memoryCache.put(videoId, drawable);
+		// hold the bitmap until it has been written
+		drawable.retain();
+		diskExecutor.execute(new Runnable() {
+
+			@Override
+			public void run() {
+				try {
+					if (diskCache.contains(videoId) || !drawable.isValid()) {
+						return;
+					}
+					ByteArrayOutputStream out = new ByteArrayOutputStream();
+					if (drawable.getBitmap().compress(Bitmap.CompressFormat.JPEG, JPEG_QUALITY, out)) {
+						diskCache.put(videoId, out.toByteArray());
+					}
+				} finally {
+					drawable.release();
+				}
+			}
+
+		});
+	}
+
+	/**
+	 * Release the memory tier, for example when the system is low on memory.
+	 */
+	public void clearMemory() {
+		memoryCache.evictAll();
+	}
+
+	public int getMemoryHitCount() {
+		return memoryCache.hitCount();
+	}
+
+	public int getMemoryMissCount() {
+		return memoryCache.missCount();
+	}
+
+	public int getMemoryEvictionCount() {
+		return memoryCache.evictionCount();
+	}
+
+	public int getMemorySize() {
+		return memoryCache.size();
+	}
+
+	public long getDiskHitCount() {
+		return diskCache.getHitCount();
+	}
+
+	public long getDiskMissCount() {
+		return diskCache.getMissCount();
+	}
+
+	public long getDiskEvictionCount() {
+		return diskCache.getEvictionCount();
+	}
+
+	public long getDiskSize() {
+		return diskCache.getSize();
+	}
+
+	public void logStatistics() {
+		Log.d(LOG_TAG, "memory: size=" + getMemorySize() + ", hits=" + getMemoryHitCount() + ", misses=" + getMemoryMissCount() + ", evictions="
+				+ getMemoryEvictionCount());
+		Log.d(LOG_TAG, "disk: size=" + getDiskSize() + ", hits=" + getDiskHitCount() + ", misses=" + getDiskMissCount() + ", evictions="
+				+ getDiskEvictionCount());
+	}
+
+}
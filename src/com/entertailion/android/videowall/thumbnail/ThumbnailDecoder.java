@@ -0,0 +1,172 @@
+/*
+ * Copyright (C) 2013 ENTERTAILION LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.entertailion.android.videowall.thumbnail;
+
+import android.content.res.Resources;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.graphics.Rect;
+import android.util.Log;
+
+/**
+ * Produces thumbnails at the exact pixel size of a wall cell, so the wall
+ * never scales a bitmap while drawing and its memory grows with the number of
+ * cells rather than with the source resolution. Target bitmaps are taken from
+ * a {@link BitmapPool} whenever one of the right size is available.
+ */
+public class ThumbnailDecoder {
+
+	private static final String LOG_TAG = "ThumbnailDecoder";
+
+	private final Resources resources;
+	private final BitmapPool pool;
+	private final int width;
+	private final int height;
+	private final Bitmap.Config config;
+
+	private final Paint paint = new Paint(Paint.FILTER_BITMAP_FLAG);
+	private final Canvas canvas = new Canvas();
+	private final Rect sourceRect = new Rect();
+	private final Rect targetRect = new Rect();
+
+	/**
+	 * @param resources
+	 * @param pool
+	 * @param width
+	 *            The cell width in pixels.
+	 * @param height
+	 *            The cell height in pixels.
+	 * @param lowColor
+	 *            Decode to RGB_565 instead of ARGB_8888, halving the memory
+	 *            of every thumbnail.
+	 */
+	public ThumbnailDecoder(Resources resources, BitmapPool pool, int width, int height, boolean lowColor) {
+		this.resources = resources;
+		this.pool = pool;
+		this.width = width;
+		this.height = height;
+		this.config = lowColor ? Bitmap.Config.RGB_565 : Bitmap.Config.ARGB_8888;
+		targetRect.set(0, 0, width, height);
+	}
+
+	public int getWidth() {
+		return width;
+	}
+
+	public int getHeight() {
+		return height;
+	}
+
+	/**
+	 * Scale a bitmap owned by someone else down to the cell size, cropping it
+	 * to the cell's aspect ratio.
+	 */
+	public synchronized PooledBitmapDrawable scale(Bitmap source) {
+		Bitmap target = obtain();
+		setCenterCrop(source.getWidth(), source.getHeight());
+		canvas.setBitmap(target);
+		canvas.drawBitmap(source, sourceRect, targetRect, paint);
+		canvas.setBitmap(null);
+		return new PooledBitmapDrawable(resources, target, pool);
+	}
+
+	/**
+	 * Decode an encoded thumbnail to the cell size. Thumbnails which are
+	 * already stored at the cell size are decoded straight into a pooled
+	 * bitmap.
+	 *
+	 * @return the thumbnail, or null if the data cannot be decoded.
+	 */
+	public PooledBitmapDrawable decode(byte[] data) {
+		BitmapFactory.Options options = new BitmapFactory.Options();
+		options.inJustDecodeBounds = true;
+		BitmapFactory.decodeByteArray(data, 0, data.length, options);
+		if (options.outWidth <= 0 || options.outHeight <= 0) {
+			return null;
+		}
+
+		options.inJustDecodeBounds = false;
+		options.inPreferredConfig = config;
+		options.inMutable = true;
+		options.inSampleSize = getSampleSize(options.outWidth, options.outHeight);
+		if (options.inSampleSize == 1 && options.outWidth == width && options.outHeight == height) {
+			// before KitKat inBitmap needs an exact size match
+			options.inBitmap = pool.get(width, height, config);
+		}
+
+		Bitmap bitmap = decode(data, options);
+		if (bitmap == null) {
+			return null;
+		}
+		if (bitmap.getWidth() == width && bitmap.getHeight() == height && bitmap.getConfig() == config) {
+			return new PooledBitmapDrawable(resources, bitmap, pool);
+		}
+		PooledBitmapDrawable drawable = scale(bitmap);
+		bitmap.recycle();
+		return drawable;
+	}
+
+	private Bitmap decode(byte[] data, BitmapFactory.Options options) {
+		try {
+			return BitmapFactory.decodeByteArray(data, 0, data.length, options);
+		} catch (IllegalArgumentException e) {
+			// the pooled bitmap could not be reused
+			Log.w(LOG_TAG, "inBitmap rejected", e);
+			pool.put(options.inBitmap);
+			options.inBitmap = null;
+			return BitmapFactory.decodeByteArray(data, 0, data.length, options);
+		}
+	}
+
+	private Bitmap obtain() {
+		Bitmap bitmap = pool.get(width, height, config);
+		if (bitmap == null) {
+			bitmap = Bitmap.createBitmap(width, height, config);
+		}
+		return bitmap;
+	}
+
+	/**
+	 * The largest power of two which keeps the decoded image at least as big
+	 * as the cell.
+	 */
+	private int getSampleSize(int sourceWidth, int sourceHeight) {
+		int sampleSize = 1;
+		while (sourceWidth / (sampleSize * 2) >= width && sourceHeight / (sampleSize * 2) >= height) {
+			sampleSize *= 2;
+		}
+		return sampleSize;
+	}
+
+	/**
+	 * Select the centered part of the source which has the aspect ratio of a
+	 * cell.
+	 */
+	private void setCenterCrop(int sourceWidth, int sourceHeight) {
+		if ((long) sourceWidth * height > (long) sourceHeight * width) {
+			int cropWidth = (int) ((long) sourceHeight * width / height);
+			int left = (sourceWidth - cropWidth) / 2;
+			sourceRect.set(left, 0, left + cropWidth, sourceHeight);
+		} else {
+			int cropHeight = (int) ((long) sourceWidth * height / width);
+			int top = (sourceHeight - cropHeight) / 2;
+			sourceRect.set(0, top, sourceWidth, top + cropHeight);
+		}
+	}
+
+}
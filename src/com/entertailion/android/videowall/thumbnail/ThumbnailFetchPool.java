@@ -0,0 +1,780 @@
+/*
+ * Copyright (C) 2013 ENTERTAILION LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.entertailion.android.videowall.thumbnail;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+import android.content.Context;
+import android.graphics.drawable.BitmapDrawable;
+import android.graphics.drawable.Drawable;
+import android.os.Handler;
+import android.os.SystemClock;
+import android.util.Log;
+
+import com.entertailion.android.videowall.playlist.PlaylistIndex;
+import com.entertailion.android.videowall.source.SourceError;
+import com.entertailion.android.videowall.source.ThumbnailLoader;
+import com.entertailion.android.videowall.source.ThumbnailSource;
+import com.entertailion.android.videowall.utils.MetricsRegistry;
+
+/**
+ * Fetches playlist thumbnails with several {@link ThumbnailLoader} instances
+ * of a {@link ThumbnailSource} running at the same time. Loaded thumbnails are kept in a
+ * {@link LookAheadBuffer} which the wall draws from; the loaders are kept busy
+ * until the buffer is full.
+ *
+ * The video IDs found while walking a playlist are recorded in its
+ * {@link PlaylistIndex}. Once the index is complete the pool picks videos in
+ * shuffled order straight from the index, serving cached thumbnails without a
+ * network round trip; while the index is stale one loader re-walks the
+ * playlist in the background to refresh it.
+ *
+ * Videos which fail are recorded in a {@link NegativeCache} and skipped until
+ * their entry expires. A loader whose requests fail stops requesting for a
+ * while, doubling the pause with every consecutive error, while the other
+ * loaders carry on.
+ *
+ * Every fetched thumbnail is scaled to the cell size by the
+ * {@link ThumbnailDecoder} and added to the {@link ThumbnailCache}; thumbnails
+ * which are already cached can be queued with {@link #preload(List)} without
+ * any network access. Buffered thumbnails are retained by the pool; whoever
+ * polls one takes over that reference.
+ *
+ * All methods must be called on the UI thread, which is also the thread the
+ * loaders deliver their callbacks on.
+ */
+public class ThumbnailFetchPool {
+
+	private static final String LOG_TAG = "ThumbnailFetchPool";
+
+	private static final long DEFAULT_BACKOFF_BASE_MILLIS = 500;
+	private static final long DEFAULT_BACKOFF_MAX_MILLIS = 60000;
+	// consecutive walk misses taken for the end of a playlist whose source
+	// does not report it
+	private static final int MAX_MISSES_PAST_END = 5;
+
+	// metrics of the loaders
+	public static final String METRIC_LOAD_LATENCY = "thumbnail.load_ms";
+	public static final String METRIC_LOAD_ERRORS = "thumbnail.errors.";
+	private static final long[] LOAD_LATENCY_BOUNDS = { 10, 50, 100, 250, 500, 1000, 2500, 5000, 10000 };
+
+	// request kinds
+	private static final int WALK = 0;
+	private static final int INDEXED = 1;
+
+	/**
+	 * Defines an interface to enable listening to fetch pool events.
+	 */
+	public interface Listener {
+
+		/**
+		 * Called when the first loader of the pool is ready to fetch
+		 * thumbnails.
+		 */
+		void onInitialized();
+
+		/**
+		 * Called when a loader of the pool could not be initialized.
+		 *
+		 * @param error
+		 */
+		void onInitializationFailure(SourceError error);
+
+		/**
+		 * Called when a thumbnail has been added to the look-ahead buffer.
+		 */
+		void onThumbnailReady();
+
+	}
+
+	private final Context context;
+	private final ThumbnailSource source;
+	private final Listener listener;
+	private final ThumbnailCache cache;
+	private final ThumbnailDecoder decoder;
+	private final long indexMaxAge;
+
+	private final ThumbnailLoader[] loaders;
+	// playlist position of the request in flight for each loader, -1 if idle
+	private final int[] positions;
+	// playlist generation the request in flight belongs to
+	private final int[] generations;
+	// kind of the request in flight
+	private final int[] kinds;
+	// start time of the request in flight
+	private final long[] startTimes;
+
+	private final LookAheadBuffer buffer;
+	private final Handler handler = new Handler();
+	private NegativeCache negativeCache;
+	private long backoffBase = DEFAULT_BACKOFF_BASE_MILLIS;
+	private long backoffMax = DEFAULT_BACKOFF_MAX_MILLIS;
+
+	private String playlistId;
+	private PlaylistIndex index;
+	private int generation;
+	// true while the playlist is walked to build or refresh the index
+	private boolean walking;
+	private int nextPosition;
+	private int lastLoadedPosition = -1;
+	// misses past the last loaded position while walking, for sources which
+	// do not report the end of a playlist
+	private int missesPastEnd;
+	private int walksInFlight;
+	private int requestsInFlight;
+	// videos to restore from the cache, looked up as the buffer has room
+	private final ArrayDeque<String> preloads = new ArrayDeque<String>();
+	private int preloadsInFlight;
+	// shuffled index positions, consumed in order
+	private int[] order = new int[0];
+	private int orderPosition;
+	private final Random random = new Random();
+	private boolean filling;
+	private boolean initialized;
+	private boolean released;
+
+	// the errors in a row of each loader and whether it is pausing
+	private final int[] consecutiveErrors;
+	private final boolean[] backingOff;
+	private final Runnable[] resumeRunnables;
+	private long requestCount;
+	private long errorCount;
+	private MetricsRegistry.BucketHistogram loadLatency;
+	private MetricsRegistry.Counter[] loadErrors;
+
+	/**
+	 * Create a pool of thumbnail loaders.
+	 *
+	 * @param context
+	 * @param source
+	 *            The source the loaders are created by.
+	 * @param listener
+	 * @param cache
+	 *            The cache fetched thumbnails are added to, may be null.
+	 * @param decoder
+	 *            The decoder scaling fetched thumbnails to the cell size.
+	 * @param loaderCount
+	 *            The number of loaders fetching at the same time.
+	 * @param capacity
+	 *            The maximum number of thumbnails kept in the look-ahead
+	 *            buffer.
+	 * @param indexMaxAge
+	 *            The age in milliseconds after which a playlist index is
+	 *            refreshed.
+	 */
+	public ThumbnailFetchPool(Context context, ThumbnailSource source, Listener listener, ThumbnailCache cache, ThumbnailDecoder decoder,
+			int loaderCount, int capacity, long indexMaxAge) {
+		this.context = context;
+		this.source = source;
+		this.listener = listener;
+		this.cache = cache;
+		this.decoder = decoder;
+		this.indexMaxAge = indexMaxAge;
+
+		int count = Math.max(1, loaderCount);
+		loaders = new ThumbnailLoader[count];
+		positions = new int[count];
+		generations = new int[count];
+		kinds = new int[count];
+		startTimes = new long[count];
+		consecutiveErrors = new int[count];
+		backingOff = new boolean[count];
+		resumeRunnables = new Runnable[count];
+		for (int i = 0; i < count; i++) {
+			resumeRunnables[i] = new ResumeRunnable(i);
+		}
+		buffer = new LookAheadBuffer(capacity);
+	}
+
+	public void initialize() {
+		for (int i = 0; i < loaders.length; i++) {
+			positions[i] = -1;
+			source.createLoader(context, new InitializationListener(i));
+		}
+	}
+
+	public boolean isInitialized() {
+		return initialized;
+	}
+
+	/**
+	 * Set the cache of failing videos which are skipped without a request.
+	 */
+	public void setNegativeCache(NegativeCache negativeCache) {
+		this.negativeCache = negativeCache;
+	}
+
+	/**
+	 * Record the time taken to load each thumbnail, from the cache or
+	 * fetched, and the errors.
+	 */
+	public void setMetrics(MetricsRegistry metrics) {
+		loadLatency = metrics.histogram(METRIC_LOAD_LATENCY, LOAD_LATENCY_BOUNDS);
+		ThumbnailLoader.ErrorReason[] reasons = ThumbnailLoader.ErrorReason.values();
+		loadErrors = new MetricsRegistry.Counter[reasons.length];
+		for (int i = 0; i < reasons.length; i++) {
+			loadErrors[i] = metrics.counter(METRIC_LOAD_ERRORS + reasons[i].name().toLowerCase(Locale.US));
+		}
+	}
+
+	/**
+	 * Set the pause after an error and the maximum it grows to with
+	 * consecutive errors.
+	 */
+	public void setBackoff(long baseMillis, long maxMillis) {
+		backoffBase = baseMillis;
+		backoffMax = Math.max(baseMillis, maxMillis);
+	}
+
+	/**
+	 * Start fetching thumbnails for a playlist. Any thumbnails of a previous
+	 * playlist are discarded.
+	 *
+	 * @param playlistId
+	 */
+	public void setPlaylist(String playlistId) {
+		if (index != null) {
+			index.save();
+		}
+		this.playlistId = playlistId;
+		index = PlaylistIndex.load(context, playlistId);
+		generation++;
+		walking = index.needsRefresh(indexMaxAge);
+		nextPosition = 0;
+		lastLoadedPosition = -1;
+		missesPastEnd = 0;
+		walksInFlight = 0;
+		preloads.clear();
+		preloadsInFlight = 0;
+		order = new int[0];
+		orderPosition = 0;
+		for (int i = 0; i < loaders.length; i++) {
+			resume(i);
+		}
+		buffer.clear();
+		fill();
+	}
+
+	/**
+	 * @return the index of the current playlist, or null if no playlist has
+	 *         been set.
+	 */
+	public PlaylistIndex getIndex() {
+		return index;
+	}
+
+	/**
+	 * Queue the cached thumbnails of the given videos ahead of any fetched
+	 * thumbnails. Videos which are not cached are skipped. The videos are
+	 * only looked up, and their thumbnails decoded, as the look-ahead buffer
+	 * has room for them.
+	 *
+	 * @param videoIds
+	 */
+	public void preload(List<String> videoIds) {
+		if (cache == null) {
+			return;
+		}
+		preloads.addAll(videoIds);
+		fill();
+	}
+
+	/**
+	 * @return the next loaded thumbnail, or null if none is ready yet. The
+	 *         caller must release the thumbnail's drawable once it no longer
+	 *         needs it.
+	 */
+	public Thumbnail poll() {
+		Thumbnail thumbnail = buffer.poll();
+		if (thumbnail != null) {
+			fill();
+		}
+		return thumbnail;
+	}
+
+	/**
+	 * @return the next loaded thumbnail without removing it from the
+	 *         look-ahead buffer, or null if none is ready yet.
+	 */
+	public Thumbnail peek() {
+		return buffer.peek();
+	}
+
+	public boolean hasThumbnail() {
+		return !buffer.isEmpty();
+	}
+
+	public LookAheadBuffer getBuffer() {
+		return buffer;
+	}
+
+	public long getRequestCount() {
+		return requestCount;
+	}
+
+	public long getErrorCount() {
+		return errorCount;
+	}
+
+	public void logStatistics() {
+		Log.d(LOG_TAG, "requests=" + requestCount + ", errors=" + errorCount + ", consecutiveErrors="
+				+ Arrays.toString(consecutiveErrors));
+		buffer.logStatistics();
+		if (negativeCache != null) {
+			negativeCache.logStatistics();
+		}
+	}
+
+	public void release() {
+		released = true;
+		for (int i = 0; i < loaders.length; i++) {
+			resume(i);
+		}
+		preloads.clear();
+		buffer.clear();
+		if (index != null) {
+			index.save();
+		}
+		if (negativeCache != null) {
+			negativeCache.save();
+		}
+		for (int i = 0; i < loaders.length; i++) {
+			if (loaders[i] != null) {
+				loaders[i].release();
+				loaders[i] = null;
+			}
+		}
+	}
+
+	/**
+	 * Restore the preloaded videos first and then keep every idle loader busy,
+	 * until the buffered thumbnails and the requests in flight reach the
+	 * capacity of the buffer.
+	 */
+	private void fill() {
+		if (filling || released || playlistId == null) {
+			return;
+		}
+		// cache hits complete synchronously, so keep going while requests
+		// are being started
+		filling = true;
+		try {
+			while (!preloads.isEmpty() && !isBufferFull()) {
+				String videoId = preloads.poll();
+				if (!isBlacklisted(videoId)) {
+					preloadsInFlight++;
+					cache.get(videoId, new PreloadCallback(generation));
+				}
+			}
+			boolean requested = true;
+			while (requested) {
+				requested = false;
+				for (int i = 0; i < loaders.length; i++) {
+					if (isBufferFull()) {
+						return;
+					}
+					if (loaders[i] != null && positions[i] < 0 && !backingOff[i] && request(i)) {
+						requested = true;
+					}
+				}
+			}
+		} finally {
+			filling = false;
+		}
+	}
+
+	private boolean isBufferFull() {
+		return buffer.size() + requestsInFlight + preloadsInFlight >= buffer.getCapacity();
+	}
+
+	/**
+	 * Start the next request on an idle loader.
+	 *
+	 * @return false if there is nothing to request.
+	 */
+	private boolean request(int i) {
+		// an incomplete index is built with every loader, a stale one is
+		// refreshed by a single loader while the others use the index
+		if (walking && (!index.isComplete() || walksInFlight == 0)) {
+			walk(i);
+			return true;
+		}
+		if (index.isComplete()) {
+			return requestIndexed(i);
+		}
+		return false;
+	}
+
+	private void walk(int i) {
+		int position = nextPosition++;
+		start(i, WALK, position);
+		walksInFlight++;
+		Log.d(LOG_TAG, "walk: loader=" + i + ", position=" + position);
+		loaders[i].setPlaylist(playlistId, position);
+	}
+
+	private boolean requestIndexed(int i) {
+		int position = nextIndexedPosition();
+		if (position < 0) {
+			return false;
+		}
+		String videoId = index.get(position);
+		start(i, INDEXED, position);
+		if (cache != null) {
+			cache.get(videoId, new LookupCallback(i, generation, videoId));
+		} else {
+			loaders[i].setVideo(videoId);
+		}
+		return true;
+	}
+
+	/**
+	 * @return the next index position in shuffled order, or -1 if the index
+	 *         holds no videos.
+	 */
+	private int nextIndexedPosition() {
+		int size = index.size();
+		if (size == 0) {
+			return -1;
+		}
+		for (int attempts = 0; attempts <= size; attempts++) {
+			if (order.length != size || orderPosition >= order.length) {
+				shuffle(size);
+			}
+			int position = order[orderPosition++];
+			String videoId = index.get(position);
+			if (videoId != null && !isBlacklisted(videoId)) {
+				return position;
+			}
+		}
+		return -1;
+	}
+
+	private void shuffle(int size) {
+		if (order.length != size) {
+			order = new int[size];
+			for (int i = 0; i < size; i++) {
+				order[i] = i;
+			}
+		}
+		for (int i = size - 1; i > 0; i--) {
+			int j = random.nextInt(i + 1);
+			int swap = order[i];
+			order[i] = order[j];
+			order[j] = swap;
+		}
+		orderPosition = 0;
+	}
+
+	private void start(int i, int kind, int position) {
+		positions[i] = position;
+		generations[i] = generation;
+		kinds[i] = kind;
+		startTimes[i] = SystemClock.uptimeMillis();
+		requestsInFlight++;
+		requestCount++;
+	}
+
+	private void recordLoaded(int i) {
+		if (loadLatency != null) {
+			loadLatency.record(SystemClock.uptimeMillis() - startTimes[i]);
+		}
+	}
+
+	private boolean isBlacklisted(String videoId) {
+		return negativeCache != null && negativeCache.isBlacklisted(videoId);
+	}
+
+	/**
+	 * Stop requesting with a loader for a while after an error, doubling the
+	 * pause with every consecutive error of the loader.
+	 */
+	private void backOff(int i) {
+		consecutiveErrors[i]++;
+		long delay = Math.min(backoffMax, backoffBase << Math.min(consecutiveErrors[i] - 1, 16));
+		Log.w(LOG_TAG, "backOff: loader=" + i + ", consecutiveErrors=" + consecutiveErrors[i] + ", delay=" + delay);
+		backingOff[i] = true;
+		handler.removeCallbacks(resumeRunnables[i]);
+		handler.postDelayed(resumeRunnables[i], delay);
+	}
+
+	/**
+	 * Let a loader request again and forget its errors.
+	 */
+	private void resume(int i) {
+		consecutiveErrors[i] = 0;
+		backingOff[i] = false;
+		handler.removeCallbacks(resumeRunnables[i]);
+	}
+
+	/**
+	 * The walk has reached the end of the playlist; complete the index.
+	 */
+	private void endWalk(int size) {
+		if (!walking || size <= 0) {
+			return;
+		}
+		walking = false;
+		index.setEnd(size);
+		Log.d(LOG_TAG, "playlist " + playlistId + " indexed: size=" + size);
+	}
+
+	/**
+	 * Marks the loader as idle and returns true if its result is still wanted.
+	 */
+	private boolean complete(int i) {
+		if (positions[i] >= 0) {
+			positions[i] = -1;
+			requestsInFlight--;
+			if (kinds[i] == WALK && generations[i] == generation) {
+				walksInFlight--;
+			}
+		}
+		return !released && generations[i] == generation;
+	}
+
+	/**
+	 * Scale a fetched thumbnail to the cell size, cache it and add it to the
+	 * look-ahead buffer.
+	 */
+	private void enqueue(String videoId, Drawable drawable) {
+		if (drawable instanceof BitmapDrawable) {
+			// copy the loader's thumbnail at the cell size
+			PooledBitmapDrawable scaled = decoder.scale(((BitmapDrawable) drawable).getBitmap());
+			scaled.retain();
+			if (cache != null) {
+				cache.put(videoId, scaled);
+			}
+			drawable = scaled;
+		}
+		buffer.add(new Thumbnail(videoId, drawable));
+		listener.onThumbnailReady();
+	}
+
+	/**
+	 * An internal listener which adds a newly created loader to the pool.
+	 */
+	private final class InitializationListener implements ThumbnailSource.OnInitializedListener {
+
+		private final int index;
+
+		InitializationListener(int index) {
+			this.index = index;
+		}
+
+		@Override
+		public void onInitializationSuccess(ThumbnailLoader loader) {
+			if (released) {
+				loader.release();
+				return;
+			}
+			Log.d(LOG_TAG, "onInitializationSuccess: " + index);
+			loaders[index] = loader;
+			loader.setOnThumbnailLoadedListener(new LoaderListener(index));
+			if (!initialized) {
+				initialized = true;
+				listener.onInitialized();
+			}
+			fill();
+		}
+
+		@Override
+		public void onInitializationFailure(SourceError error) {
+			Log.w(LOG_TAG, "onInitializationFailure: " + error);
+			if (!released) {
+				listener.onInitializationFailure(error);
+			}
+		}
+
+	}
+
+	/**
+	 * An internal listener which listens to thumbnail loading events of one
+	 * loader of the pool.
+	 */
+	private final class LoaderListener implements ThumbnailLoader.OnThumbnailLoadedListener {
+
+		private final int index;
+
+		LoaderListener(int index) {
+			this.index = index;
+		}
+
+		@Override
+		public void onThumbnailLoaded(ThumbnailLoader loader, String videoId, Drawable drawable) {
+			int position = positions[index];
+			int kind = kinds[index];
+			if (!complete(index)) {
+				fill();
+				return;
+			}
+			consecutiveErrors[index] = 0;
+			recordLoaded(index);
+			if (negativeCache != null) {
+				negativeCache.recordSuccess(videoId);
+			}
+			if (kind == WALK) {
+				ThumbnailFetchPool.this.index.set(position, videoId);
+				if (position > lastLoadedPosition) {
+					lastLoadedPosition = position;
+					missesPastEnd = 0;
+				}
+				if (!loaders[index].hasNext()) {
+					endWalk(position + 1);
+				}
+			}
+			enqueue(videoId, drawable);
+			fill();
+		}
+
+		@Override
+		public void onThumbnailError(ThumbnailLoader loader, String videoId, ThumbnailLoader.ErrorReason reason) {
+			int position = positions[index];
+			int kind = kinds[index];
+			Log.w(LOG_TAG, "onThumbnailError: loader=" + index + ", position=" + position + ", videoId=" + videoId + ", reason=" + reason);
+			if (!complete(index)) {
+				fill();
+				return;
+			}
+			if (reason == ThumbnailLoader.ErrorReason.END_OF_PLAYLIST) {
+				if (kind == WALK) {
+					endWalk(position);
+				}
+				fill();
+				return;
+			}
+			if (kind == WALK && position > lastLoadedPosition && reason != ThumbnailLoader.ErrorReason.NETWORK_ERROR) {
+				// a walk past the last loaded position probes for the end of
+				// the playlist; a few misses in a row are taken for it
+				if (++missesPastEnd >= MAX_MISSES_PAST_END) {
+					endWalk(lastLoadedPosition + 1);
+				}
+				fill();
+				return;
+			}
+			errorCount++;
+			if (loadErrors != null) {
+				loadErrors[reason.ordinal()].increment();
+			}
+			if (negativeCache != null) {
+				negativeCache.recordFailure(videoId);
+			}
+			backOff(index);
+			fill();
+		}
+
+	}
+
+	/**
+	 * Queues an indexed video's thumbnail if it is cached, otherwise fetches it
+	 * with the loader reserved for the lookup.
+	 */
+	private final class LookupCallback implements ThumbnailCache.Callback {
+
+		private final int index;
+		private final int lookupGeneration;
+		private final String videoId;
+
+		LookupCallback(int index, int lookupGeneration, String videoId) {
+			this.index = index;
+			this.lookupGeneration = lookupGeneration;
+			this.videoId = videoId;
+		}
+
+		@Override
+		public void onThumbnailCached(String cachedVideoId, PooledBitmapDrawable drawable) {
+			if (released || positions[index] < 0 || generations[index] != lookupGeneration) {
+				return;
+			}
+			if (lookupGeneration != generation) {
+				complete(index);
+				fill();
+				return;
+			}
+			if (drawable == null) {
+				if (loaders[index] != null) {
+					loaders[index].setVideo(videoId);
+				} else {
+					// the loader has gone, give the request up
+					complete(index);
+					fill();
+				}
+				return;
+			}
+			complete(index);
+			recordLoaded(index);
+			drawable.retain();
+			buffer.add(new Thumbnail(videoId, drawable));
+			listener.onThumbnailReady();
+			fill();
+		}
+
+	}
+
+	/**
+	 * Lets a loader request again once its pause after an error is over.
+	 */
+	private final class ResumeRunnable implements Runnable {
+
+		private final int index;
+
+		ResumeRunnable(int index) {
+			this.index = index;
+		}
+
+		@Override
+		public void run() {
+			backingOff[index] = false;
+			fill();
+		}
+
+	}
+
+	/**
+	 * Queues a thumbnail found in the cache, unless the playlist has changed
+	 * since the lookup was started.
+	 */
+	private final class PreloadCallback implements ThumbnailCache.Callback {
+
+		private final int preloadGeneration;
+
+		PreloadCallback(int preloadGeneration) {
+			this.preloadGeneration = preloadGeneration;
+		}
+
+		@Override
+		public void onThumbnailCached(String videoId, PooledBitmapDrawable drawable) {
+			if (released || preloadGeneration != generation) {
+				return;
+			}
+			preloadsInFlight--;
+			if (drawable == null) {
+				// make room for the next video
+				fill();
+				return;
+			}
+			drawable.retain();
+			buffer.addCached(new Thumbnail(videoId, drawable));
+			listener.onThumbnailReady();
+		}
+
+	}
+
+}
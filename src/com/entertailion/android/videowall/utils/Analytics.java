@@ -56,9 +56,14 @@ public class Analytics {
 	public static final String ROWS_TWO = "rows.two";
 	public static final String ROWS_THREE = "rows.three";
 	public static final String ROWS_FOUR = "rows.four";
+	public static final String ROWS_EIGHT = "rows.eight";
+	public static final String ROWS_TWELVE = "rows.twelve";
+	public static final String ROWS_SIXTEEN = "rows.sixteen";
 	public static final String SELECT_PLAYLIST = "playlist.select";
 	public static final String HIGHLIGHT_ON = "highlight.on";
 	public static final String HIGHLIGHT_OFF = "highlight.off";
+	public static final String FLIP_UNDERRUN = "flip.underrun";
+	public static final String FLIP_GOVERNOR = "flip.governor";
 
 	private static Context context;
 
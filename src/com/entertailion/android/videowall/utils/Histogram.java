@@ -0,0 +1,161 @@
+/*
+ * Copyright (C) 2013 ENTERTAILION LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.entertailion.android.videowall.utils;
+
+/**
+ * A histogram of non-negative long values with log-linear buckets: values
+ * below 2^precision are counted exactly, larger values in buckets whose width
+ * is at most 1/2^(precision-1) of their value. Recording never allocates.
+ *
+ * This class is not thread-safe.
+ */
+public class Histogram {
+
+	private final long maxValue;
+	private final int subBucketCount;
+	private final int halfCount;
+	private final int precision;
+	private final long[] counts;
+
+	private long count;
+	private long total;
+	private long min = Long.MAX_VALUE;
+	private long max;
+
+	/**
+	 * @param maxValue
+	 *            The largest value tracked precisely; larger values are
+	 *            counted in the last bucket.
+	 * @param precision
+	 *            The number of significant bits of each bucket, 2 to 16.
+	 */
+	public Histogram(long maxValue, int precision) {
+		this.precision = Math.max(2, Math.min(16, precision));
+		this.maxValue = Math.max(1, maxValue);
+		subBucketCount = 1 << this.precision;
+		halfCount = subBucketCount >> 1;
+		counts = new long[getIndex(this.maxValue) + 1];
+	}
+
+	public void record(long value) {
+		if (value < 0) {
+			value = 0;
+		}
+		counts[getIndex(Math.min(value, maxValue))]++;
+		count++;
+		total += value;
+		if (value < min) {
+			min = value;
+		}
+		if (value > max) {
+			max = value;
+		}
+	}
+
+	public void reset() {
+		for (int i = 0; i < counts.length; i++) {
+			counts[i] = 0;
+		}
+		count = 0;
+		total = 0;
+		min = Long.MAX_VALUE;
+		max = 0;
+	}
+
+	public long getCount() {
+		return count;
+	}
+
+	public long getTotal() {
+		return total;
+	}
+
+	public long getMin() {
+		return count > 0 ? min : 0;
+	}
+
+	public long getMax() {
+		return max;
+	}
+
+	public long getMean() {
+		return count > 0 ? total / count : 0;
+	}
+
+	/**
+	 * @param percentile
+	 *            0 to 100.
+	 * @return the highest value of the bucket holding the percentile, at most
+	 *         the maximum recorded value.
+	 */
+	public long getValueAtPercentile(double percentile) {
+		if (count == 0) {
+			return 0;
+		}
+		long target = Math.max(1, (long) Math.ceil(count * Math.min(100, percentile) / 100));
+		long cumulative = 0;
+		for (int i = 0; i < counts.length; i++) {
+			cumulative += counts[i];
+			if (cumulative >= target) {
+				return Math.min(getUpperBound(i), max);
+			}
+		}
+		return max;
+	}
+
+	/**
+	 * @return the number of buckets.
+	 */
+	public int getBucketCount() {
+		return counts.length;
+	}
+
+	public long getBucketLowerBound(int index) {
+		if (index < subBucketCount) {
+			return index;
+		}
+		int group = (index - subBucketCount) / halfCount + 1;
+		int offset = (index - subBucketCount) % halfCount;
+		return (long) (halfCount + offset) << group;
+	}
+
+	public long getBucketCountAt(int index) {
+		return counts[index];
+	}
+
+	private long getUpperBound(int index) {
+		if (index < subBucketCount) {
+			return index;
+		}
+		int group = (index - subBucketCount) / halfCount + 1;
+		return getBucketLowerBound(index) + (1L << group) - 1;
+	}
+
+	private int getIndex(long value) {
+		if (value < subBucketCount) {
+			return (int) value;
+		}
+		int group = 63 - Long.numberOfLeadingZeros(value) - precision + 1;
+		return subBucketCount + (group - 1) * halfCount + (int) ((value >> group) - halfCount);
+	}
+
+	@Override
+	public String toString() {
+		return "count=" + count + ", min=" + getMin() + ", mean=" + getMean() + ", p50=" + getValueAtPercentile(50) + ", p90="
+				+ getValueAtPercentile(90) + ", p99=" + getValueAtPercentile(99) + ", max=" + max;
+	}
+
+}
@@ -0,0 +1,133 @@
+/*
+ * Copyright (C) 2013 ENTERTAILION LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.entertailion.android.videowall.utils;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * A set of small non-negative ints backed by a dense array and a position
+ * map: add, remove, contains and picking a random member are O(1) and
+ * allocate nothing once the set has grown to its capacity.
+ */
+public class IntIndexSet {
+
+	private static final int ABSENT = -1;
+
+	private int[] members;
+	private int[] positions;
+	private int size;
+
+	/**
+	 * @param capacity
+	 *            one more than the largest index expected; the set grows if
+	 *            a larger index is added.
+	 */
+	public IntIndexSet(int capacity) {
+		members = new int[Math.max(1, capacity)];
+		positions = new int[members.length];
+		Arrays.fill(positions, ABSENT);
+	}
+
+	/**
+	 * Make room for indexes below the given capacity.
+	 */
+	public void ensureCapacity(int capacity) {
+		if (capacity > positions.length) {
+			int oldLength = positions.length;
+			int length = Math.max(capacity, oldLength * 2);
+			positions = Arrays.copyOf(positions, length);
+			Arrays.fill(positions, oldLength, length, ABSENT);
+			members = Arrays.copyOf(members, length);
+		}
+	}
+
+	/**
+	 * @return true if the index was not a member.
+	 */
+	public boolean add(int index) {
+		ensureCapacity(index + 1);
+		if (positions[index] != ABSENT) {
+			return false;
+		}
+		positions[index] = size;
+		members[size++] = index;
+		return true;
+	}
+
+	/**
+	 * Remove an index by moving the last member into its position.
+	 * 
+	 * @return true if the index was a member.
+	 */
+	public boolean remove(int index) {
+		if (index < 0 || index >= positions.length || positions[index] == ABSENT) {
+			return false;
+		}
+		int position = positions[index];
+		int last = members[--size];
+		members[position] = last;
+		positions[last] = position;
+		positions[index] = ABSENT;
+		return true;
+	}
+
+	public boolean contains(int index) {
+		return index >= 0 && index < positions.length && positions[index] != ABSENT;
+	}
+
+	/**
+	 * Add or remove an index.
+	 */
+	public void set(int index, boolean member) {
+		if (member) {
+			add(index);
+		} else {
+			remove(index);
+		}
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	/**
+	 * @return the member at a position between 0 and size() - 1. Positions
+	 *         change as members are removed.
+	 */
+	public int get(int position) {
+		return members[position];
+	}
+
+	/**
+	 * @return a member picked uniformly at random, or -1 if the set is empty.
+	 */
+	public int random(Random random) {
+		return size > 0 ? members[random.nextInt(size)] : ABSENT;
+	}
+
+	public void clear() {
+		for (int i = 0; i < size; i++) {
+			positions[members[i]] = ABSENT;
+		}
+		size = 0;
+	}
+
+}
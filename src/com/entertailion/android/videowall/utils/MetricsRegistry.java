@@ -0,0 +1,254 @@
+/*
+ * Copyright (C) 2013 ENTERTAILION LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.entertailion.android.videowall.utils;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Named counters, gauges and histograms of the wall which can be recorded
+ * from any thread without locking, and read together as a {@link Snapshot}.
+ * Looking a metric up by name may allocate the first time; recording never
+ * does, so metrics are looked up once and kept.
+ */
+public class MetricsRegistry {
+
+	/**
+	 * A count which only goes up.
+	 */
+	public static final class Counter {
+
+		private final AtomicLong value = new AtomicLong();
+
+		public void increment() {
+			value.incrementAndGet();
+		}
+
+		public void add(long delta) {
+			value.addAndGet(delta);
+		}
+
+		public long get() {
+			return value.get();
+		}
+
+	}
+
+	/**
+	 * A value read when a snapshot is taken.
+	 */
+	public interface Gauge {
+
+		long getValue();
+
+	}
+
+	/**
+	 * A histogram with fixed bucket bounds, e.g. of latencies in
+	 * milliseconds.
+	 */
+	public static final class BucketHistogram {
+
+		private final long[] bounds;
+		// one bucket per bound for the values up to it, and one above all
+		// bounds
+		private final AtomicLongArray counts;
+		private final AtomicLong count = new AtomicLong();
+		private final AtomicLong total = new AtomicLong();
+		private final AtomicLong max = new AtomicLong();
+
+		BucketHistogram(long[] bounds) {
+			this.bounds = bounds.clone();
+			counts = new AtomicLongArray(bounds.length + 1);
+		}
+
+		public void record(long value) {
+			int low = 0;
+			int high = bounds.length;
+			while (low < high) {
+				int middle = (low + high) >>> 1;
+				if (bounds[middle] < value) {
+					low = middle + 1;
+				} else {
+					high = middle;
+				}
+			}
+			counts.incrementAndGet(low);
+			count.incrementAndGet();
+			total.addAndGet(value);
+			long current = max.get();
+			while (value > current && !max.compareAndSet(current, value)) {
+				current = max.get();
+			}
+		}
+
+		public long getCount() {
+			return count.get();
+		}
+
+		public long getMean() {
+			long n = count.get();
+			return n > 0 ? total.get() / n : 0;
+		}
+
+		public long getMax() {
+			return max.get();
+		}
+
+		/**
+		 * @param percentile
+		 *            0 to 100.
+		 * @return the bound of the bucket holding the percentile, or the
+		 *         maximum for values above every bound.
+		 */
+		public long getValueAtPercentile(double percentile) {
+			long n = count.get();
+			if (n == 0) {
+				return 0;
+			}
+			long target = Math.max(1, (long) Math.ceil(n * Math.min(100, percentile) / 100));
+			long cumulative = 0;
+			for (int i = 0; i < bounds.length; i++) {
+				cumulative += counts.get(i);
+				if (cumulative >= target) {
+					return Math.min(bounds[i], max.get());
+				}
+			}
+			return max.get();
+		}
+
+	}
+
+	/**
+	 * The values of every metric at a point in time, histograms flattened
+	 * into their count, mean, p50, p95, p99 and max.
+	 */
+	public static final class Snapshot {
+
+		private final long time;
+		private final Map<String, Long> values;
+
+		Snapshot(long time, Map<String, Long> values) {
+			this.time = time;
+			this.values = values;
+		}
+
+		/**
+		 * @return the time the snapshot was taken, see
+		 *         {@link System#currentTimeMillis()}.
+		 */
+		public long getTime() {
+			return time;
+		}
+
+		/**
+		 * @return the values by name, sorted by name.
+		 */
+		public Map<String, Long> getValues() {
+			return values;
+		}
+
+		@Override
+		public String toString() {
+			StringBuilder text = new StringBuilder();
+			for (Map.Entry<String, Long> entry : values.entrySet()) {
+				if (text.length() > 0) {
+					text.append(", ");
+				}
+				text.append(entry.getKey()).append('=').append(entry.getValue());
+			}
+			return text.toString();
+		}
+
+	}
+
+	private final ConcurrentMap<String, Counter> counters = new ConcurrentHashMap<String, Counter>();
+	private final ConcurrentMap<String, Gauge> gauges = new ConcurrentHashMap<String, Gauge>();
+	private final ConcurrentMap<String, BucketHistogram> histograms = new ConcurrentHashMap<String, BucketHistogram>();
+
+	/**
+	 * @return the counter of a name, created if needed.
+	 */
+	public Counter counter(String name) {
+		Counter counter = counters.get(name);
+		if (counter == null) {
+			Counter created = new Counter();
+			counter = counters.putIfAbsent(name, created);
+			if (counter == null) {
+				counter = created;
+			}
+		}
+		return counter;
+	}
+
+	/**
+	 * Register a gauge, replacing a gauge of the same name.
+	 */
+	public void gauge(String name, Gauge gauge) {
+		gauges.put(name, gauge);
+	}
+
+	/**
+	 * Remove a gauge unless it has been replaced since.
+	 */
+	public void removeGauge(String name, Gauge gauge) {
+		gauges.remove(name, gauge);
+	}
+
+	/**
+	 * @param bounds
+	 *            the ascending upper bounds of the buckets, used if the
+	 *            histogram does not exist yet.
+	 * @return the histogram of a name, created if needed.
+	 */
+	public BucketHistogram histogram(String name, long... bounds) {
+		BucketHistogram histogram = histograms.get(name);
+		if (histogram == null) {
+			BucketHistogram created = new BucketHistogram(bounds);
+			histogram = histograms.putIfAbsent(name, created);
+			if (histogram == null) {
+				histogram = created;
+			}
+		}
+		return histogram;
+	}
+
+	public Snapshot snapshot() {
+		Map<String, Long> values = new TreeMap<String, Long>();
+		for (Map.Entry<String, Counter> entry : counters.entrySet()) {
+			values.put(entry.getKey(), entry.getValue().get());
+		}
+		for (Map.Entry<String, Gauge> entry : gauges.entrySet()) {
+			values.put(entry.getKey(), entry.getValue().getValue());
+		}
+		for (Map.Entry<String, BucketHistogram> entry : histograms.entrySet()) {
+			String name = entry.getKey();
+			BucketHistogram histogram = entry.getValue();
+			values.put(name + ".count", histogram.getCount());
+			values.put(name + ".mean", histogram.getMean());
+			values.put(name + ".p50", histogram.getValueAtPercentile(50));
+			values.put(name + ".p95", histogram.getValueAtPercentile(95));
+			values.put(name + ".p99", histogram.getValueAtPercentile(99));
+			values.put(name + ".max", histogram.getMax());
+		}
+		return new Snapshot(System.currentTimeMillis(), values);
+	}
+
+}